@@ -0,0 +1,146 @@
+package jpabook.jpashop.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule.Feature;
+
+import jpabook.jpashop.api.MemberApiController.MemberDTO;
+import jpabook.jpashop.api.MemberApiController.Result;
+import jpabook.jpashop.api.OrderApiController.OrderDTO;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+
+/**
+ * DTO 목록 JSON 변환 : Jackson databind vs 전용 작성기(DtoJsonWriters)
+ * 
+ 	· DB 없이 JSON 변환 비용만 측정한다. 1회(op) = 목록 전체를 바이트 배열에 쓰기
+ 	· ObjectMapper 는 애플리케이션과 같은 설정 (Jackson2ObjectMapperBuilder + Hibernate5JakartaModule)
+ 	· 목록
+ 		· orders : OrderDTO (V2, V3, V3.1 응답), 주문당 상품 2개
+ 		· orderQueries : OrderQueryDTO (V4, V5, V6 응답), 주문당 상품 2개
+ 		· members : Result<List<MemberDTO>> (/api/v2/members 응답)
+ 	· 할당량 비교 : ./gradlew jmh -Pjmh.includes=DtoJsonBenchmark 후 gc.alloc.rate.norm (build.gradle 의 jmh profilers)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DtoJsonBenchmark {
+
+	@Param({"1000", "100000"})
+	public int rows;
+
+	private ObjectMapper objectMapper;
+	private List<OrderDTO> orders;
+	private List<OrderQueryDTO> orderQueries;
+	private Result<List<MemberDTO>> members;
+	private ByteArrayOutputStream out;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Hibernate5JakartaModule hibernateModule = new Hibernate5JakartaModule();
+		hibernateModule.configure(Feature.FORCE_LAZY_LOADING, false);
+		objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(hibernateModule).build();
+		
+		Book book1 = new Book();
+		book1.setName("JPA1 BOOK");
+		Book book2 = new Book();
+		book2.setName("JPA2 BOOK");
+		
+		orders = new ArrayList<>(rows);
+		orderQueries = new ArrayList<>(rows);
+		List<MemberDTO> memberDTOs = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			Address address = new Address("서울", "street-" + (i % 100), String.format("%05d", i));
+			
+			Member member = new Member();
+			member.setName("member-" + i);
+			member.setAddress(address);
+			Delivery delivery = new Delivery();
+			delivery.setAddress(address);
+			Order order = Order.createOrder(member, delivery,
+					OrderItem.createReservedOrderItem(book1, 10000, 1),
+					OrderItem.createReservedOrderItem(book2, 20000, 2));
+			order.setId((long) i);
+			orders.add(new OrderDTO(order));
+			
+			orderQueries.add(new OrderQueryDTO((long) i, "member-" + i, LocalDateTime.now(), OrderStatus.ORDER, address,
+					List.of(new OrderItemQueryDto((long) i, "JPA1 BOOK", 10000, 1), new OrderItemQueryDto((long) i, "JPA2 BOOK", 20000, 2))));
+			
+			memberDTOs.add(new MemberDTO("member-" + i, "서울", "street-" + (i % 100), String.format("%05d", i)));
+		}
+		members = new Result<>(memberDTOs.size(), memberDTOs);
+		
+		out = new ByteArrayOutputStream(rows * 256);
+	}
+
+	@Benchmark
+	public int orders_databind() throws IOException {
+		return databind(orders);
+	}
+
+	@Benchmark
+	public int orders_writer() throws IOException {
+		return writer(orders);
+	}
+
+	@Benchmark
+	public int orderQueries_databind() throws IOException {
+		return databind(orderQueries);
+	}
+
+	@Benchmark
+	public int orderQueries_writer() throws IOException {
+		return writer(orderQueries);
+	}
+
+	@Benchmark
+	public int members_databind() throws IOException {
+		return databind(members);
+	}
+
+	@Benchmark
+	public int members_writer() throws IOException {
+		return writer(members);
+	}
+
+	private int databind(Object value) throws IOException {
+		out.reset();
+		objectMapper.writeValue(out, value);
+		return out.size();
+	}
+
+	private int writer(Object value) throws IOException {
+		out.reset();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+			DtoJsonWriters.writeValue(generator, value);
+		}
+		return out.size();
+	}
+}
@@ -0,0 +1,128 @@
+package jpabook.jpashop.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jpabook.jpashop.benchmark.BenchmarkApplication;
+import jpabook.jpashop.benchmark.BenchmarkData;
+
+/**
+ * 부하 테스트 : 블로킹 주문 조회(/api/v3.1/orders) vs 비동기 주문 조회(/api/async/v3.1/orders)
+ * 
+ 	· 실제 서블릿 컨테이너(Tomcat, 임의 포트)를 띄우고 HTTP 로 호출한다.
+ 	· 그룹마다 느린 목록 조회(limit=1000) 스레드 32개와 가벼운 요청(/hello) 스레드 2개를 동시에 실행한다.
+ 		· Tomcat 스레드 16개, Hikari 커넥션 8개로 줄여서 느린 조회만으로 요청 스레드가 모두 차도록 만든다.
+ 		· blocking : 느린 조회가 Tomcat 스레드를 붙잡고 있으므로 /hello 도 스레드가 빌 때까지 기다린다.
+ 		· async : 느린 조회는 전용 스레드 풀(커넥션 수 만큼)에서 실행되고, 넘치면 바로 503 이 응답된다. /hello 는 기다리지 않는다.
+ 	· 결과 (SampleTime) : 메소드별 p50, p99, p99.9, max 응답 시간
+ 		· 느린 조회의 503 응답 수는 rejected 카운터로 같이 출력한다.
+ 	· 실행 : ./gradlew jmh -Pjmh.includes=OrderAsyncLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderAsyncLoadBenchmark {
+
+	private static final int ORDERS = 20_000;
+
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private String baseUrl;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start(WebApplicationType.SERVLET, "order-async-load",
+				"--server.port=0",
+				"--server.tomcat.threads.max=16",
+				"--spring.datasource.hikari.maximum-pool-size=8",
+				"--spring.jpa.open-in-view=true",
+				"--jpashop.sql-monitor.enabled=false");
+		BenchmarkData.seed(context.getBean(DataSource.class), 1000, 100, ORDERS, 2);
+		
+		baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		client = HttpClient.newBuilder()
+				.executor(Executors.newCachedThreadPool())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * 느린 조회의 503 응답 수
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Rejections {
+		public long rejected;
+	}
+
+	@Benchmark
+	@Group("blocking")
+	@GroupThreads(32)
+	public int blocking_slowOrders(Rejections rejections) throws Exception {
+		return get("/api/v3.1/orders?limit=1000", rejections);
+	}
+
+	@Benchmark
+	@Group("blocking")
+	@GroupThreads(2)
+	public int blocking_cheap() throws Exception {
+		return get("/hello", null);
+	}
+
+	@Benchmark
+	@Group("async")
+	@GroupThreads(32)
+	public int async_slowOrders(Rejections rejections) throws Exception {
+		return get("/api/async/v3.1/orders?limit=1000", rejections);
+	}
+
+	@Benchmark
+	@Group("async")
+	@GroupThreads(2)
+	public int async_cheap() throws Exception {
+		return get("/hello", null);
+	}
+
+	private int get(String path, Rejections rejections) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(60))
+				.GET()
+				.build();
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		
+		if (response.statusCode() == 503 && rejections != null) {
+			rejections.rejected++;
+		} else if (response.statusCode() != 200) {
+			throw new IllegalStateException(path + " -> " + response.statusCode());
+		}
+		return response.body().length;
+	}
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.api;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jpabook.jpashop.benchmark.BenchmarkApplication;
+import jpabook.jpashop.benchmark.BenchmarkData;
+import jpabook.jpashop.benchmark.SqlCounters;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+
+/**
+ * 주문 조회 전략(V1 ~ V6) 벤치마크
+ * 
+ 	· OrderApiController 의 각 버전을 그대로 호출한다. (컨트롤러 = 리포지토리 조회 전략 + DTO 변환)
+ 	· OSIV 대신 읽기 전용 트랜잭션 안에서 실행해서 지연 로딩이 가능하도록 한다.
+ 	· 결과
+ 		· 처리량 : ops/s
+ 		· 할당률 : gc.alloc.rate.norm (gc 프로파일러, build.gradle 의 jmh 설정)
+ 		· SQL 수 : statementsPerOp, entityLoadsPerOp, collectionFetchesPerOp
+ 	
+ 	※ 참고
+ 		· 조회 건수가 버전마다 다르다. V1, V2 는 최대 1000건, V3 는 100건(메모리 페이징), V3.1 은 한 페이지(100건), 나머지는 전체 주문이다.
+ 		· V4 는 주문 수 만큼 쿼리가 실행되므로 1,000,000건에서는 1회 실행에 매우 오랜 시간이 걸린다. 
+ 		  필요한 경우 ./gradlew jmh -Pjmh.includes='OrderRetrievalBenchmark.v[56]' 처럼 골라서 실행한다.
+ 		· V4 컨트롤러는 응답 캐시(ConditionalJsonResponses)를 거치므로 조회 전략만 비교하도록 리포지토리를 직접 호출한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderRetrievalBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int orderCount;
+
+	@Param({"1000"})
+	public int itemCount;
+
+	@Param({"2"})
+	public int itemsPerOrder;
+
+	private ConfigurableApplicationContext context;
+	private OrderApiController orderApi;
+	private OrderQueryRepository orderQueryRepository;
+	private TransactionTemplate readOnlyTx;
+	private Statistics statistics;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("order-retrieval-" + orderCount);
+		BenchmarkData.seed(context.getBean(DataSource.class), Math.max(1, orderCount / 10), itemCount, orderCount, itemsPerOrder);
+		
+		orderApi = context.getBean(OrderApiController.class);
+		orderQueryRepository = context.getBean(OrderQueryRepository.class);
+		readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnlyTx.setReadOnly(true);
+		statistics = BenchmarkApplication.statistics(context);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Object v1_entity(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV1()));
+	}
+
+	@Benchmark
+	public Object v2_entityToDto(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV2()));
+	}
+
+	@Benchmark
+	public Object v3_fetchJoin(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV3()));
+	}
+
+	@Benchmark
+	public Object v3_1_batchFetch(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV3_page(0, 100)));
+	}
+
+	@Benchmark
+	public Object v4_dtoQuery(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderQueryRepository.findOrderQueryDTO()));
+	}
+
+	@Benchmark
+	public Object v5_dtoQueryIn(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV5()));
+	}
+
+	@Benchmark
+	public Object v6_flatDto(SqlCounters counters) {
+		return counters.measure(statistics, () -> readOnlyTx.execute(status -> orderApi.ordersV6()));
+	}
+}
@@ -0,0 +1,75 @@
+package jpabook.jpashop.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.JpashopApplication;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 
+ 	· 벤치마크마다 별도의 H2 메모리 DB 를 사용한다.
+ 	· SQL 로그, 샘플 데이터(InitDB)는 끈다. 측정값에 로그 출력 비용이 섞이면 안된다.
+ 	· 커맨드라인 인자로 넘기므로 application.yml 보다 우선한다.
+ 	· extraArgs 에 같은 키가 있으면 기본값 대신 extraArgs 를 사용한다. (예: --spring.jpa.open-in-view=true)
+ */
+public final class BenchmarkApplication {
+
+	private BenchmarkApplication() {}
+
+	public static ConfigurableApplicationContext start(String databaseName, String... extraArgs) {
+		return start(WebApplicationType.NONE, databaseName, extraArgs);
+	}
+
+	public static ConfigurableApplicationContext start(WebApplicationType webType, String databaseName, String... extraArgs) {
+		// devtools 재시작 기능은 main 스레드가 아닌 곳에서 실행하면 동작하지 않으므로 끈다.
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		
+		List<String> args = new ArrayList<>(List.of(
+				"--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+				"--spring.jpa.properties[hibernate.show_sql]=false",
+				"--spring.jpa.properties[hibernate.format_sql]=false",
+				"--spring.jpa.properties[hibernate.highlight_sql]=false",
+				"--spring.jpa.properties[hibernate.generate_statistics]=true",
+				"--spring.jpa.open-in-view=false",
+				"--logging.level.root=warn",
+				"--logging.level.org.hibernate.SQL=warn",
+				"--logging.level.org.hibernate.orm.jdbc.bind=warn",
+				"--jpashop.init-db.enabled=false"));
+		// 같은 키를 두번 넘기면 값이 "false,true" 처럼 합쳐지므로 기본값을 지운다. ('=' 가 없는 인자는 키를 알 수 없으므로 그대로 둔다.)
+		for (String extra : extraArgs) {
+			String key = keyOf(extra);
+			if (key != null) {
+				args.removeIf(arg -> key.equals(keyOf(arg)));
+			}
+		}
+		args.addAll(Arrays.asList(extraArgs));
+		
+		return new SpringApplicationBuilder(JpashopApplication.class)
+				.web(webType)
+				.logStartupInfo(false)
+				.run(args.toArray(String[]::new));
+	}
+
+	/**
+	 * --key=value 의 key (없으면 null)
+	 */
+	private static String keyOf(String arg) {
+		int index = arg.indexOf('=');
+		return index < 0 ? null : arg.substring(0, index);
+	}
+
+	public static Statistics statistics(ConfigurableApplicationContext context) {
+		Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		return statistics;
+	}
+}
@@ -0,0 +1,144 @@
+package jpabook.jpashop.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * 벤치마크 데이터 적재
+ * 
+ 	· 수십만 ~ 수백만건을 넣어야 하므로 JPA 를 거치지 않고 JDBC 배치 insert 로 넣는다.
+ 	· id 를 직접 지정하므로 적재 후 모든 시퀀스를 적재한 id 보다 뒤에서 시작하도록 재설정한다. 
+ 	  (벤치마크 중 JPA 로 저장하는 경우 id 충돌 방지)
+ 	· 주문 1건 = 배송 1건 + 주문상품 itemsPerOrder 건
+ */
+public final class BenchmarkData {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private BenchmarkData() {}
+
+	public static void seed(DataSource dataSource, int memberCount, int itemCount, int orderCount, int itemsPerOrder) {
+		try (Connection con = dataSource.getConnection()) {
+			con.setAutoCommit(false);
+			
+			insertMembers(con, memberCount);
+			insertItems(con, itemCount);
+			insertOrders(con, memberCount, itemCount, orderCount, itemsPerOrder);
+			con.commit();
+			
+			long maxId = Math.max(Math.max(memberCount, itemCount), (long) orderCount * Math.max(1, itemsPerOrder));
+			restartSequences(con, maxId + 100);
+			con.commit();
+		} catch (SQLException e) {
+			throw new IllegalStateException("벤치마크 데이터 적재 실패", e);
+		}
+	}
+
+	private static void insertMembers(Connection con, int memberCount) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(
+				"insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)")) {
+			for (int id = 1; id <= memberCount; id++) {
+				ps.setLong(1, id);
+				ps.setString(2, "member-" + id);
+				ps.setString(3, "서울");
+				ps.setString(4, "street-" + (id % 100));
+				ps.setString(5, String.format("%05d", id % 100000));
+				ps.addBatch();
+				if (id % BATCH_SIZE == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private static void insertItems(Connection con, int itemCount) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(
+				"insert into item (dtype, item_id, name, price, stock_quantity, author, isbn) values ('B', ?, ?, ?, ?, ?, ?)")) {
+			for (int id = 1; id <= itemCount; id++) {
+				ps.setLong(1, id);
+				ps.setString(2, "book-" + id);
+				ps.setInt(3, 10000 + (id % 10) * 1000);
+				ps.setInt(4, Integer.MAX_VALUE / 2);
+				ps.setString(5, "author-" + (id % 1000));
+				ps.setString(6, "isbn-" + id);
+				ps.addBatch();
+				if (id % BATCH_SIZE == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private static void insertOrders(Connection con, int memberCount, int itemCount, int orderCount, int itemsPerOrder) throws SQLException {
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		
+		try (PreparedStatement delivery = con.prepareStatement(
+				"insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, 'READY')");
+			PreparedStatement order = con.prepareStatement(
+				"insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, 'ORDER')");
+			PreparedStatement orderItem = con.prepareStatement(
+				"insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)")) {
+			
+			long orderItemId = 1;
+			for (int id = 1; id <= orderCount; id++) {
+				delivery.setLong(1, id);
+				delivery.setString(2, "서울");
+				delivery.setString(3, "street-" + (id % 100));
+				delivery.setString(4, String.format("%05d", id % 100000));
+				delivery.addBatch();
+				
+				order.setLong(1, id);
+				order.setLong(2, (id % memberCount) + 1);
+				order.setLong(3, id);
+				order.setTimestamp(4, now);
+				order.addBatch();
+				
+				for (int i = 0; i < itemsPerOrder; i++) {
+					orderItem.setLong(1, orderItemId++);
+					orderItem.setLong(2, id);
+					orderItem.setLong(3, ((long) id * itemsPerOrder + i) % itemCount + 1);
+					orderItem.setInt(4, 10000);
+					orderItem.setInt(5, 1 + i);
+					orderItem.addBatch();
+				}
+				
+				// FK 순서 : delivery -> orders -> order_item
+				if (id % BATCH_SIZE == 0) {
+					delivery.executeBatch();
+					order.executeBatch();
+					orderItem.executeBatch();
+				}
+			}
+			delivery.executeBatch();
+			order.executeBatch();
+			orderItem.executeBatch();
+		}
+	}
+
+	private static void restartSequences(Connection con, long start) throws SQLException {
+		List<String> sequences = new ArrayList<>();
+		try (Statement st = con.createStatement();
+			ResultSet rs = st.executeQuery("select sequence_name from information_schema.sequences where sequence_schema = 'PUBLIC'")) {
+			while (rs.next()) {
+				sequences.add(rs.getString(1));
+			}
+		}
+		
+		try (Statement st = con.createStatement()) {
+			for (String sequence : sequences) {
+				st.execute("alter sequence " + sequence + " restart with " + start);
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package jpabook.jpashop.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import jpabook.jpashop.service.OrderBatchService;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderRequest;
+import jpabook.jpashop.service.OrderService;
+
+/**
+ * 주문 저장 벤치마크 : 단건(OrderService.order) vs 대량(OrderBatchService.placeOrders)
+ * 
+ 	· 1회(op) = 주문 1건. 결과의 ops/s 가 초당 주문 수이다.
+ 	· 주문 1건(상품 1개) = insert 3건 (orders, delivery, order_item) + 상품 재고 update 1건
+ 	· statementsPerOp : 메소드 1회 호출(주문 1000건)에 준비된 JDBC 문장 수. 
+ 	  단건은 주문마다 조회 + insert 를 각각 실행하고, 대량은 chunk 마다 조회 2번 + 테이블별 배치 insert 만 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderPlacementBenchmark {
+
+	private static final int ORDERS = 1000;
+	private static final int MEMBERS = 10_000;
+	private static final int ITEMS = 1000;
+
+	private ConfigurableApplicationContext context;
+	private OrderService orderService;
+	private OrderBatchService orderBatchService;
+	private Statistics statistics;
+	private long sequence;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("order-placement");
+		BenchmarkData.seed(context.getBean(DataSource.class), MEMBERS, ITEMS, 0, 0);
+		
+		orderService = context.getBean(OrderService.class);
+		orderBatchService = context.getBean(OrderBatchService.class);
+		statistics = BenchmarkApplication.statistics(context);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ORDERS)
+	public Long single(SqlCounters counters) {
+		return counters.measure(statistics, () -> {
+			Long last = null;
+			for (int i = 0; i < ORDERS; i++) {
+				long seq = sequence++;
+				last = orderService.order(memberId(seq), itemId(seq), 1);
+			}
+			return last;
+		});
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ORDERS)
+	public Object batch(SqlCounters counters) {
+		List<OrderRequest> requests = new ArrayList<>(ORDERS);
+		for (int i = 0; i < ORDERS; i++) {
+			long seq = sequence++;
+			requests.add(new OrderRequest(memberId(seq), List.of(new OrderLine(itemId(seq), 1))));
+		}
+		
+		return counters.measure(statistics, () -> orderBatchService.placeOrders(requests));
+	}
+
+	private static Long memberId(long seq) {
+		return seq % MEMBERS + 1;
+	}
+
+	private static Long itemId(long seq) {
+		return seq % ITEMS + 1;
+	}
+}
@@ -0,0 +1,98 @@
+package jpabook.jpashop.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.MemberRepository;
+
+/**
+ * 목록 조회 : 일반 엔티티 vs 읽기 전용 힌트 vs StatelessSession
+ * 
+ 	· 1회(op) = 목록 조회 + 트랜잭션 커밋
+ 		· 커밋 시 flush 로 영속 엔티티 전체를 변경감지한다. (OSIV 에서 트랜잭션 있는 서비스를 호출한 것과 같다.)
+ 	· 결과
+ 		· 처리량(ops/s) : CPU 비용
+ 		· gc.alloc.rate.norm : 1회당 할당 byte (스냅샷, 엔티티 엔트리 등)
+ 	· 쿼리 캐시는 사용하지 않는다. (조회 방식 차이만 비교)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadOnlyListBenchmark {
+
+	@Param({"10000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private EntityManager em;
+	private MemberRepository memberRepository;
+	private TransactionTemplate tx;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("read-only-list");
+		BenchmarkData.seed(context.getBean(DataSource.class), rows, 100, rows, 1);
+		
+		em = context.getBean(EntityManager.class);
+		memberRepository = context.getBean(MemberRepository.class);
+		tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Member> members_managed() {
+		return tx.execute(status -> em.createQuery("select m from Member m", Member.class)
+				.getResultList());
+	}
+
+	@Benchmark
+	public List<Member> members_readOnly() {
+		return tx.execute(status -> em.createQuery("select m from Member m", Member.class)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultList());
+	}
+
+	@Benchmark
+	public List<Member> members_stateless() {
+		return tx.execute(status -> memberRepository.findAllStateless());
+	}
+
+	@Benchmark
+	public List<Order> orders_managed() {
+		return tx.execute(status -> em.createQuery(
+				"select o from Order o join fetch o.member m join fetch o.delivery d", Order.class)
+				.getResultList());
+	}
+
+	@Benchmark
+	public List<Order> orders_readOnly() {
+		return tx.execute(status -> em.createQuery(
+				"select o from Order o join fetch o.member m join fetch o.delivery d", Order.class)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultList());
+	}
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.benchmark;
+
+import java.util.function.Supplier;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벤치마크 1회(op) 실행 동안 발생한 SQL 수
+ * - 하이버네이트 통계(Statistics)의 전/후 차이로 계산한다.
+ * - 같은 전략은 매번 같은 SQL 을 실행하므로 마지막 1회의 값을 결과에 같이 출력한다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SqlCounters {
+
+	public long statementsPerOp;
+	public long entityLoadsPerOp;
+	public long collectionFetchesPerOp;
+
+	public <T> T measure(Statistics statistics, Supplier<T> work) {
+		long statements = statistics.getPrepareStatementCount();
+		long entityLoads = statistics.getEntityLoadCount();
+		long collectionFetches = statistics.getCollectionFetchCount();
+		
+		T result = work.get();
+		
+		statementsPerOp = statistics.getPrepareStatementCount() - statements;
+		entityLoadsPerOp = statistics.getEntityLoadCount() - entityLoads;
+		collectionFetchesPerOp = statistics.getCollectionFetchCount() - collectionFetches;
+		return result;
+	}
+}
@@ -0,0 +1,83 @@
+package jpabook.jpashop.repository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jpabook.jpashop.benchmark.BenchmarkApplication;
+import jpabook.jpashop.benchmark.BenchmarkData;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSearch;
+
+/**
+ * 주문 검색 회원명 부분 일치 : like '%검색어%' vs 트라이그램 인덱스(MemberNameIndex)
+ * 
+ 	· 회원 100만명, 주문 100만건 (회원당 1건), 회원 이름은 "member-{id}"
+ 	· useIndex
+ 		· false : m.name like '%검색어%' (회원 전체 스캔 + 주문 조인)
+ 		· true : 후보 회원 id 를 인덱스에서 구한 후 member_id in (...) and m.name like '%검색어%'
+ 	· fragment
+ 		· member-123456 : 1명
+ 		· ber-4242 : 111명 (4242, 42420~42429, 424200~424299)
+ 		· nobody : 0명 (인덱스에 없는 트라이그램이면 DB 조회도 하지 않는다)
+ 	· 실행 : ./gradlew jmh -Pjmh.includes=MemberNameSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberNameSearchBenchmark {
+
+	private static final int MEMBERS = 1_000_000;
+
+	@Param({"false", "true"})
+	public boolean useIndex;
+
+	@Param({"member-123456", "ber-4242", "nobody"})
+	public String fragment;
+
+	private ConfigurableApplicationContext context;
+	private OrderRepository orderRepository;
+	private TransactionTemplate tx;
+	private OrderSearch orderSearch;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start("member-name-search", "--jpashop.member.name-index.enabled=" + useIndex);
+		BenchmarkData.seed(context.getBean(DataSource.class), MEMBERS, 10, MEMBERS, 0);
+		
+		// 기동 시점에는 데이터가 없었으므로 다시 만든다.
+		context.getBean(MemberNameIndex.class).load();
+		
+		orderRepository = context.getBean(OrderRepository.class);
+		tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		tx.setReadOnly(true);
+		
+		orderSearch = new OrderSearch();
+		orderSearch.setMemberName(fragment);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Order> findAllByCriteria() {
+		return tx.execute(status -> orderRepository.findAllByCriteria(orderSearch));
+	}
+}
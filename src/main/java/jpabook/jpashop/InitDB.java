@@ -1,5 +1,6 @@
 package jpabook.jpashop;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,7 +14,12 @@ import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * 샘플 데이터 등록
+ * - jpashop.init-db.enabled=false 이면 등록하지 않는다. (벤치마크, 대량 데이터 적재 등)
+ */
 @Component
+@ConditionalOnProperty(name = "jpashop.init-db.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 public class InitDB {
 
@@ -0,0 +1,190 @@
+package jpabook.jpashop;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.DataVersions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 부하 테스트용 대량 데이터 등록
+ * 
+ 	· seed 프로파일에서만 빈이 등록된다. (--spring.profiles.active=seed) 기본 실행에는 영향이 없다.
+ 	· 건수는 application-seed.yml 의 jpashop.seed.* 로 조정한다.
+ 		· 주문 수 = members * orders-per-member, 주문상품 수 = 주문 수 * items-per-order
+ 	· 회원 chunk-size 명 단위로 트랜잭션을 나눈다. 
+ 		· chunk 마다 flush/clear 하므로 영속성 컨텍스트가 커지지 않는다. (메모리 일정)
+ 		· insert 는 hibernate.jdbc.batch_size 단위로 묶여서 실행된다. (order_inserts : 같은 테이블끼리 모아서 배치)
+ 	· id 는 @GeneratedValue 기본 전략(시퀀스, increment 50, pooled 옵티마이저)이므로 50건마다 한번만 시퀀스를 조회한다.
+ 	· 2차 캐시에는 넣지 않는다. (CacheStoreMode.BYPASS)
+ 	
+ 	※ 참고
+ 		· 주문상품 생성 시 OrderItem.creatOrderITem 을 사용하지 않는다. 
+ 		  재고 차감을 하려면 상품을 조회해야 하므로, 상품은 프록시(getReference)로만 연결하고 재고는 충분히 크게 잡아둔다.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+public class SeedDB {
+
+	private final EntityManager em;
+	private final PlatformTransactionManager transactionManager;
+	private final DataVersions dataVersions;
+
+	@Value("${jpashop.seed.members:100000}")
+	private int memberCount;
+
+	@Value("${jpashop.seed.orders-per-member:2}")
+	private int ordersPerMember;
+
+	@Value("${jpashop.seed.items-per-order:2}")
+	private int itemsPerOrder;
+
+	@Value("${jpashop.seed.items:10000}")
+	private int itemCount;
+
+	@Value("${jpashop.seed.chunk-size:1000}")
+	private int chunkSize;
+
+	/**
+	 * 다른 ApplicationReadyEvent 리스너(캐시 적재 등)보다 먼저 실행되어야 한다.
+	 */
+	@org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+	@EventListener(ApplicationReadyEvent.class)
+	public void seed() {
+		long started = System.nanoTime();
+		
+		Item[] items = seedItems();
+		long rows = items.length + seedMembersAndOrders(items);
+		
+		// 이벤트 없이 저장했으므로 응답 ETag(데이터 버전)를 직접 올린다.
+		dataVersions.bumpAll();
+		report("전체", rows, started);
+	}
+
+	/**
+	 * 상품 등록
+	 * - 주문상품에서 참조할 id, 가격만 남긴다. (clear 이후에는 준영속 상태)
+	 */
+	private Item[] seedItems() {
+		long started = System.nanoTime();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Item[] items = new Item[itemCount];
+		
+		for (int from = 0; from < itemCount; from += chunkSize) {
+			int to = Math.min(from + chunkSize, itemCount);
+			int start = from;
+			tx.executeWithoutResult(status -> {
+				bypassSecondLevelCache();
+				for (int i = start; i < to; i++) {
+					Book book = new Book();
+					book.setName("book-" + (i + 1));
+					book.setPrice(10000 + (i % 10) * 1000);
+					book.setStockQuantity(Integer.MAX_VALUE / 2);
+					book.setAuthor("author-" + (i % 1000));
+					book.setIsbn("isbn-" + (i + 1));
+					em.persist(book);
+					items[i] = book;
+				}
+				em.flush();
+				em.clear();
+			});
+		}
+		
+		report("상품", itemCount, started);
+		return items;
+	}
+
+	/**
+	 * 회원 + 주문(배송, 주문상품) 등록
+	 * - 회원과 회원의 주문을 같은 chunk 에서 저장한다. 
+	 *   Order.setMember 가 member.getOrders() 에 추가하므로, 이전 chunk 의 회원을 참조하면 회원을 다시 조회해야 한다.
+	 */
+	private long seedMembersAndOrders(Item[] items) {
+		long started = System.nanoTime();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		long orderCount = (long) memberCount * ordersPerMember;
+		long rowsPerMember = 1 + ordersPerMember * (2L + itemsPerOrder);	// 회원 + (주문 + 배송 + 주문상품) * 주문 수
+		long progressStep = Math.max(1, memberCount / 10);
+		
+		for (int from = 0; from < memberCount; from += chunkSize) {
+			int to = Math.min(from + chunkSize, memberCount);
+			int start = from;
+			tx.executeWithoutResult(status -> {
+				bypassSecondLevelCache();
+				for (int i = start; i < to; i++) {
+					Member member = createMember(i);
+					em.persist(member);
+					
+					for (int o = 0; o < ordersPerMember; o++) {
+						long orderSeq = (long) i * ordersPerMember + o;
+						em.persist(Order.createOrder(member, createDelivery(member.getAddress()), createOrderItems(items, orderSeq)));
+					}
+				}
+				em.flush();
+				em.clear();
+			});
+			
+			if (to / progressStep != from / progressStep || to == memberCount) {
+				report("회원/주문 " + to + "/" + memberCount, to * rowsPerMember, started);
+			}
+		}
+		
+		log.info("seed : 회원 {}, 주문 {}, 주문상품 {}", memberCount, orderCount, orderCount * itemsPerOrder);
+		return memberCount * rowsPerMember;
+	}
+
+	private Member createMember(int i) {
+		Member member = new Member();
+		member.setName("member-" + (i + 1));
+		member.setAddress(new Address("서울", "street-" + (i % 100), String.format("%05d", i % 100000)));
+		return member;
+	}
+
+	private Delivery createDelivery(Address address) {
+		Delivery delivery = new Delivery();
+		delivery.setAddress(address);
+		delivery.setStatus(DeliveryStatus.READY);
+		return delivery;
+	}
+
+	private OrderItem[] createOrderItems(Item[] items, long orderSeq) {
+		OrderItem[] orderItems = new OrderItem[itemsPerOrder];
+		for (int k = 0; k < itemsPerOrder; k++) {
+			Item item = items[(int) ((orderSeq * itemsPerOrder + k) % items.length)];
+			
+			OrderItem orderItem = new OrderItem(1 + k);
+			orderItem.setItem(em.getReference(Item.class, item.getId()));
+			orderItem.setOrderPrice(item.getPrice());
+			orderItems[k] = orderItem;
+		}
+		return orderItems;
+	}
+
+	private void bypassSecondLevelCache() {
+		em.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+	}
+
+	private void report(String target, long rows, long startedNanos) {
+		double seconds = Math.max(1, System.nanoTime() - startedNanos) / 1_000_000_000.0;
+		log.info("seed {} : {} rows, {} s, {} rows/s", target, rows, String.format("%.1f", seconds), Math.round(rows / seconds));
+	}
+}
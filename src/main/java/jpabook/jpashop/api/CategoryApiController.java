@@ -0,0 +1,148 @@
+package jpabook.jpashop.api;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.InvalidRequestException;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 카테고리 API
+ *
+ 	· 카테고리 트리는 DB 를 조회하지 않고 메모리 스냅샷(CategoryTree)으로 응답한다.
+ 	· 카테고리 하위 전체의 상품은 경로(Category.path)로 쿼리 1번에 조회한다.
+ 		· 예) /api/categories/1/items?offset=0&limit=100
+ 	· 여러 카테고리 조건의 상품은 카테고리별 상품 비트맵(CategoryItemIndex)으로 계산한다.
+ 		· 예) /api/categories/items?ids=1,2&match=all (모든 카테고리에 속한 상품) , ?ids=1,2&match=any (하나라도 속한 상품)
+ 	· 상품 목록의 offset 은 0 이상, limit 은 1 이상이어야 한다. limit 은 최대 1000 까지만 조회한다. (MAX_LIMIT)
+ 	· 잘못된 match, offset, limit 은 400 (InvalidRequestException)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+	private static final int MAX_LIMIT = 1000;
+
+	private final CategoryService categoryService;
+	private final CategoryTree categoryTree;
+
+	@GetMapping("/api/categories")
+	public List<CategoryDTO> categories() {
+		CategoryTree.Snapshot snapshot = categoryTree.getSnapshot();
+		return toDTOs(snapshot, snapshot.getRoots());
+	}
+
+	@PostMapping("/api/categories")
+	public CreateCategoryResponse saveCategory(@RequestBody @Valid CreateCategoryRequest request) {
+		Long id = categoryService.create(request.getName(), request.getParentId());
+		return new CreateCategoryResponse(id);
+	}
+
+	@PostMapping("/api/categories/{id}/items/{itemId}")
+	public void addItem(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+		categoryService.addItem(id, itemId);
+	}
+
+	@DeleteMapping("/api/categories/{id}/items/{itemId}")
+	public void removeItem(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+		categoryService.removeItem(id, itemId);
+	}
+
+	@GetMapping("/api/categories/items")
+	public List<CategoryItemDTO> itemsByCategories(
+			@RequestParam("ids") List<Long> ids,
+			@RequestParam(value = "match", defaultValue = "all") String match,
+			@RequestParam(value = "offset", defaultValue = "0") int offset,
+			@RequestParam(value = "limit", defaultValue = "100") int limit)
+	{
+		if (!"all".equals(match) && !"any".equals(match)) {
+			throw new InvalidRequestException("match 는 all 또는 any 입니다. match=" + match);
+		}
+		
+		return categoryService.findItemsByCategories(ids, "all".equals(match), offset, pageLimit(offset, limit)).stream()
+				.map(CategoryItemDTO::new)
+				.collect(Collectors.toList());
+	}
+
+	@GetMapping("/api/categories/{id}/items")
+	public List<CategoryItemDTO> items(
+			@PathVariable("id") Long id,
+			@RequestParam(value = "offset", defaultValue = "0") int offset,
+			@RequestParam(value = "limit", defaultValue = "100") int limit)
+	{
+		return categoryService.findItemsInSubtree(id, offset, pageLimit(offset, limit)).stream()
+				.map(CategoryItemDTO::new)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * 페이지 파라미터 검증
+	 * @return MAX_LIMIT 를 넘지 않는 limit
+	 */
+	private static int pageLimit(int offset, int limit) {
+		if (offset < 0) {
+			throw new InvalidRequestException("offset 은 0 이상이어야 합니다. offset=" + offset);
+		}
+		if (limit < 1) {
+			throw new InvalidRequestException("limit 은 1 이상이어야 합니다. limit=" + limit);
+		}
+		return Math.min(limit, MAX_LIMIT);
+	}
+
+	private static List<CategoryDTO> toDTOs(CategoryTree.Snapshot snapshot, List<CategoryTree.Node> nodes) {
+		return nodes.stream()
+				.map(node -> new CategoryDTO(node.getId(), node.getName(), toDTOs(snapshot, snapshot.getChildren(node))))
+				.collect(Collectors.toList());
+	}
+
+	@Data
+	@AllArgsConstructor
+	static class CategoryDTO {
+		private Long id;
+		private String name;
+		private List<CategoryDTO> children;
+	}
+
+	@Data
+	static class CategoryItemDTO {
+		private Long id;
+		private String name;
+		private int price;
+		private int stockQuantity;
+
+		public CategoryItemDTO(Item item) {
+			this.id = item.getId();
+			this.name = item.getName();
+			this.price = item.getPrice();
+			this.stockQuantity = item.getStockQuantity();
+		}
+	}
+
+	@Data
+	static class CreateCategoryRequest {
+		@NotEmpty(message = "카테고리 이름은 필수값 입니다.")
+		private String name;
+		private Long parentId;
+	}
+
+	@Data
+	@AllArgsConstructor
+	static class CreateCategoryResponse {
+		private Long id;
+	}
+}
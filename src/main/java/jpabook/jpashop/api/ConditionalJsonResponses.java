@@ -0,0 +1,212 @@
+package jpabook.jpashop.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jpabook.jpashop.service.DataVersions;
+import jpabook.jpashop.service.DataVersions.Aggregate;
+
+/**
+ * 데이터 버전(DataVersions) 기반 ETag + 조건부 GET
+ * 
+ 	· ETag = 응답이 사용하는 데이터 버전 조합 (예: "orders-v4:o1680000000123.m1680000000007")
+ 	· If-None-Match 가 현재 ETag 와 같으면 DB 조회, JSON 변환 없이 304 를 응답한다.
+ 	· 다르면 현재 버전의 JSON 바이트를 캐시에서 꺼내 응답한다. 없으면 조회 + JSON 변환 후 캐시에 넣는다.
+ 		· 같은 키(엔드포인트 + ETag)는 한번만 만든다. 동시에 들어온 요청은 만들어진 결과를 같이 사용한다.
+ 			· 캐시에는 미완료 future 만 넣고, 조회와 JSON 변환은 캐시 밖(요청 스레드)에서 실행한다. (AsyncCache)
+ 			· 캐시의 compute 안에서 오래 걸리는 조회를 실행하면 같은 해시 칸의 다른 키 쓰기가 모두 기다린다.
+ 		· 엔드포인트마다 최신 버전의 응답만 캐시한다. 새 버전이 보이면 이전 ETag 의 응답은 바로 지운다.
+ 		  최신보다 오래된 버전을 읽은 요청(버전 변경과 동시에 들어온 요청)은 캐시하지 않고 응답만 만든다.
+ 		· 캐시 크기는 jpashop.cache.responses.max-size (바이트) 로 제한한다.
+ 	· 버전은 조회 전에 읽는다. 조회 중에 변경이 커밋되면 응답이 ETag 보다 새로울 수는 있어도 오래될 수는 없다.
+ 	· Cache-Control: no-cache (클라이언트는 매번 If-None-Match 로 확인한다.)
+ 	· 메트릭 : jpashop.http.conditional (result=not_modified|cached|rendered)
+ */
+@Component
+public class ConditionalJsonResponses {
+
+	private final ObjectMapper objectMapper;
+	private final DataVersions dataVersions;
+	private final AsyncCache<String, byte[]> bodies;
+	private final ConcurrentHashMap<String, Latest> latest = new ConcurrentHashMap<>();	// 응답 이름 -> 최신 버전의 ETag
+	private final Counter notModified;
+	private final Counter cached;
+	private final Counter rendered;
+
+	public ConditionalJsonResponses(ObjectMapper objectMapper, DataVersions dataVersions, MeterRegistry meterRegistry,
+			@Value("${jpashop.cache.responses.max-size:64MB}") DataSize maxSize) {
+		this.objectMapper = objectMapper;
+		this.dataVersions = dataVersions;
+		this.bodies = Caffeine.newBuilder()
+				.maximumWeight(maxSize.toBytes())
+				.weigher((String key, byte[] body) -> body.length)
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, bodies.synchronous(), "responses");
+		
+		this.notModified = meterRegistry.counter("jpashop.http.conditional", "result", "not_modified");
+		this.cached = meterRegistry.counter("jpashop.http.conditional", "result", "cached");
+		this.rendered = meterRegistry.counter("jpashop.http.conditional", "result", "rendered");
+	}
+
+	/**
+	 * @param name 응답 이름 (ETag, 캐시 키에 사용)
+	 * @param dependsOn 응답에 포함된 데이터
+	 * @param query 조회 (ETag 가 일치하지 않고 캐시에도 없을 때만 실행)
+	 */
+	public ResponseEntity<byte[]> get(WebRequest request, String name, Aggregate[] dependsOn, Supplier<?> query) {
+		long[] versions = new long[dependsOn.length];
+		for (int i = 0; i < dependsOn.length; i++) {
+			versions[i] = dataVersions.get(dependsOn[i]);
+		}
+		String etag = etag(name, dependsOn, versions);
+		
+		if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+			notModified.increment();
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(etag)
+					.cacheControl(CacheControl.noCache())
+					.build();
+		}
+		
+		byte[] body;
+		if (!isLatest(name, etag, versions)) {
+			body = render(query.get());
+			rendered.increment();
+		} else {
+			CompletableFuture<byte[]> mine = new CompletableFuture<>();
+			CompletableFuture<byte[]> existing = bodies.asMap().putIfAbsent(etag, mine);
+			if (existing == null) {
+				try {
+					mine.complete(render(query.get()));
+				} catch (RuntimeException e) {
+					mine.completeExceptionally(e);	// 실패한 future 는 캐시에서 빠진다.
+					throw e;
+				}
+				body = mine.join();
+				rendered.increment();
+			} else {
+				body = join(existing);
+				cached.increment();
+			}
+		}
+		
+		return ResponseEntity.ok()
+				.eTag(etag)
+				.cacheControl(CacheControl.noCache())
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.body(body);
+	}
+
+	/**
+	 * If-None-Match : "a", W/"b", * 형식 (약한 비교)
+	 * - request.checkNotModified 는 응답에 직접 304 와 헤더를 쓰므로 사용하지 않고 ResponseEntity 로 반환한다.
+	 */
+	private boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 응답 이름의 최신 버전인지 확인하고, 더 새로운 버전이면 이전 ETag 의 응답을 지운다.
+	 * - 모든 버전이 최신 이상이면 새 버전이다. (버전은 증가만 한다.)
+	 */
+	private boolean isLatest(String name, String etag, long[] versions) {
+		String[] superseded = new String[1];
+		Latest current = latest.compute(name, (key, previous) -> {
+			if (previous == null || previous.etag.equals(etag)) {
+				return previous == null ? new Latest(etag, versions) : previous;
+			}
+			for (int i = 0; i < versions.length; i++) {
+				if (versions[i] < previous.versions[i]) {
+					return previous;
+				}
+			}
+			superseded[0] = previous.etag;
+			return new Latest(etag, versions);
+		});
+		
+		if (superseded[0] != null) {
+			bodies.synchronous().invalidate(superseded[0]);
+		}
+		return current.etag.equals(etag);
+	}
+
+	// 다른 요청이 만드는 중인 응답을 기다린다. 실패했으면 같은 예외를 던진다.
+	private static byte[] join(CompletableFuture<byte[]> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private String etag(String name, Aggregate[] dependsOn, long[] versions) {
+		StringBuilder etag = new StringBuilder("\"").append(name).append(':');
+		for (int i = 0; i < dependsOn.length; i++) {
+			if (i > 0) {
+				etag.append('.');
+			}
+			etag.append(Character.toLowerCase(dependsOn[i].name().charAt(0))).append(versions[i]);
+		}
+		return etag.append('"').toString();
+	}
+
+	private byte[] render(Object value) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+			DtoJsonWriters.writeValue(generator, value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static final class Latest {
+		private final String etag;
+		private final long[] versions;
+
+		Latest(String etag, long[] versions) {
+			this.etag = etag;
+			this.versions = versions;
+		}
+	}
+}
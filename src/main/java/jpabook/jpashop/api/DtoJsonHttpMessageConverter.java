@@ -0,0 +1,69 @@
+package jpabook.jpashop.api;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 주문, 회원 DTO 응답을 전용 작성기(DtoJsonWriters)로 쓰는 컨버터
+ * 
+ 	· 쓰기 전용이다. 요청 바디(@RequestBody)는 기존 Jackson 컨버터가 읽는다.
+ 	· DtoJsonWriters 가 지원하는 타입(DTO, DTO 목록, Result, CursorResult)만 맡고 나머지는 Jackson 컨버터로 넘어간다.
+ 	· JsonGenerator 는 스프링이 만든 ObjectMapper 의 JsonFactory 로 만든다. (등록되지 않은 값은 이 ObjectMapper 로 쓴다.)
+ */
+public class DtoJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	private final ObjectMapper objectMapper;
+
+	public DtoJsonHttpMessageConverter(ObjectMapper objectMapper) {
+		super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return DtoJsonWriters.supports(clazz);
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return canWrite(mediaType) && DtoJsonWriters.supports(type != null ? type : clazz);
+	}
+
+	@Override
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+		DtoJsonWriters.writeValue(generator, value);
+		generator.flush();
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		throw new HttpMessageNotReadableException("DtoJsonHttpMessageConverter 는 쓰기 전용입니다.", inputMessage);
+	}
+
+	@Override
+	protected Object readInternal(Class<? extends Object> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+		throw new HttpMessageNotReadableException("DtoJsonHttpMessageConverter 는 쓰기 전용입니다.", inputMessage);
+	}
+}
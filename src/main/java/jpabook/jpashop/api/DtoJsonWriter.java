@@ -0,0 +1,13 @@
+package jpabook.jpashop.api;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * DTO 하나를 JsonGenerator 에 직접 쓴다. (DtoJsonWriters)
+ */
+@FunctionalInterface
+public interface DtoJsonWriter<T> {
+	void write(JsonGenerator generator, T value) throws IOException;
+}
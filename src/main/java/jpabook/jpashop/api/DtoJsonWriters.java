@@ -0,0 +1,323 @@
+package jpabook.jpashop.api;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.ResolvableType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import jpabook.jpashop.api.MemberApiController.MemberDTO;
+import jpabook.jpashop.api.MemberApiController.Result;
+import jpabook.jpashop.api.OrderApiController.CursorResult;
+import jpabook.jpashop.api.OrderApiController.OrderDTO;
+import jpabook.jpashop.api.OrderApiController.OrderItemDTO;
+import jpabook.jpashop.api.OrderSimpleApiController.SimpleOrderDto;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
+
+/**
+ * 주문, 회원 DTO 전용 JSON 작성기
+ * 
+ 	· Jackson databind 는 DTO 마다 리플렉션으로 만든 BeanSerializer 로 속성을 하나씩 찾아 쓰고,
+ 	  Hibernate5JakartaModule 은 모든 속성 값이 지연 로딩 프록시인지 확인한다. 목록이 크면 JSON 변환 비용이 쿼리 비용만큼 커진다.
+ 	· 여기서는 DTO 별로 getter 를 직접 호출해서 JsonGenerator 에 바로 쓴다. 
+ 		· 필드 이름은 미리 만들어 둔 SerializedString(UTF-8 인코딩 캐시)을 사용한다.
+ 		· 출력 결과(필드 이름, 순서, 날짜 포맷, null)는 databind 와 같다. 
+ 	· 등록되지 않은 타입은 JsonGenerator 의 ObjectMapper(databind)로 쓴다.
+ 	· DtoJsonHttpMessageConverter 가 API 응답에, OrderApiController.exportOrdersV6 가 NDJSON 내보내기에 사용한다.
+ 	
+ 	※ 참고
+ 		· DTO 에 필드를 추가하면 여기에도 추가해야 응답에 나온다. (DtoJsonWritersTest 가 databind 결과와 비교한다.)
+ */
+public final class DtoJsonWriters {
+
+	private DtoJsonWriters() {}
+
+	// databind(JavaTimeModule, WRITE_DATES_AS_TIMESTAMPS=false) 와 같은 포맷
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+	private static final SerializableString ID = name("id");
+	private static final SerializableString ORDER_ID = name("orderId");
+	private static final SerializableString NAME = name("name");
+	private static final SerializableString ORDER_DATE = name("orderDate");
+	private static final SerializableString STATUS = name("status");
+	private static final SerializableString ORDER_STATUS = name("orderStatus");
+	private static final SerializableString ADDRESS = name("address");
+	private static final SerializableString ORDER_ITEMS = name("orderItems");
+	private static final SerializableString ITEM_NAME = name("itemName");
+	private static final SerializableString ORDER_PRICE = name("orderPrice");
+	private static final SerializableString COUNT = name("count");
+	private static final SerializableString CITY = name("city");
+	private static final SerializableString STREET = name("street");
+	private static final SerializableString ZIPCODE = name("zipcode");
+	private static final SerializableString NEXT_CURSOR = name("nextCursor");
+	private static final SerializableString DATA = name("data");
+
+	public static final DtoJsonWriter<Address> ADDRESS_WRITER = (g, a) -> {
+		g.writeStartObject();
+		g.writeFieldName(CITY);
+		g.writeString(a.getCity());
+		g.writeFieldName(STREET);
+		g.writeString(a.getStreet());
+		g.writeFieldName(ZIPCODE);
+		g.writeString(a.getZipcode());
+		g.writeEndObject();
+	};
+
+	static final DtoJsonWriter<OrderItemDTO> ORDER_ITEM_WRITER = (g, oi) -> {
+		g.writeStartObject();
+		g.writeFieldName(ITEM_NAME);
+		g.writeString(oi.getItemName());
+		g.writeFieldName(ORDER_PRICE);
+		g.writeNumber(oi.getOrderPrice());
+		g.writeFieldName(COUNT);
+		g.writeNumber(oi.getCount());
+		g.writeEndObject();
+	};
+
+	static final DtoJsonWriter<OrderDTO> ORDER_WRITER = (g, o) -> {
+		g.writeStartObject();
+		g.writeFieldName(ID);
+		writeLong(g, o.getId());
+		g.writeFieldName(NAME);
+		g.writeString(o.getName());
+		g.writeFieldName(ORDER_DATE);
+		writeDateTime(g, o.getOrderDate());
+		g.writeFieldName(STATUS);
+		writeStatus(g, o.getStatus());
+		g.writeFieldName(ADDRESS);
+		writeNullable(g, o.getAddress(), ADDRESS_WRITER);
+		g.writeFieldName(ORDER_ITEMS);
+		writeList(g, o.getOrderItems(), DtoJsonWriters.ORDER_ITEM_WRITER);
+		g.writeEndObject();
+	};
+
+	public static final DtoJsonWriter<OrderItemQueryDto> ORDER_ITEM_QUERY_WRITER = (g, oi) -> {
+		// orderId 는 @JsonIgnore
+		g.writeStartObject();
+		g.writeFieldName(ITEM_NAME);
+		g.writeString(oi.getItemName());
+		g.writeFieldName(ORDER_PRICE);
+		g.writeNumber(oi.getOrderPrice());
+		g.writeFieldName(COUNT);
+		g.writeNumber(oi.getCount());
+		g.writeEndObject();
+	};
+
+	public static final DtoJsonWriter<OrderQueryDTO> ORDER_QUERY_WRITER = (g, o) -> {
+		g.writeStartObject();
+		g.writeFieldName(ORDER_ID);
+		writeLong(g, o.getOrderId());
+		g.writeFieldName(NAME);
+		g.writeString(o.getName());
+		g.writeFieldName(ORDER_DATE);
+		writeDateTime(g, o.getOrderDate());
+		g.writeFieldName(ORDER_STATUS);
+		writeStatus(g, o.getOrderStatus());
+		g.writeFieldName(ADDRESS);
+		writeNullable(g, o.getAddress(), ADDRESS_WRITER);
+		g.writeFieldName(ORDER_ITEMS);
+		writeList(g, o.getOrderItems(), DtoJsonWriters.ORDER_ITEM_QUERY_WRITER);
+		g.writeEndObject();
+	};
+
+	public static final DtoJsonWriter<OrderSimpleQueryDTO> ORDER_SIMPLE_QUERY_WRITER = (g, o) -> {
+		g.writeStartObject();
+		g.writeFieldName(ORDER_ID);
+		writeLong(g, o.getOrderId());
+		g.writeFieldName(NAME);
+		g.writeString(o.getName());
+		g.writeFieldName(ORDER_DATE);
+		writeDateTime(g, o.getOrderDate());
+		g.writeFieldName(ORDER_STATUS);
+		writeStatus(g, o.getOrderStatus());
+		g.writeFieldName(ADDRESS);
+		writeNullable(g, o.getAddress(), ADDRESS_WRITER);
+		g.writeEndObject();
+	};
+
+	static final DtoJsonWriter<SimpleOrderDto> SIMPLE_ORDER_WRITER = (g, o) -> {
+		g.writeStartObject();
+		g.writeFieldName(ORDER_ID);
+		writeLong(g, o.getOrderId());
+		g.writeFieldName(NAME);
+		g.writeString(o.getName());
+		g.writeFieldName(ORDER_DATE);
+		writeDateTime(g, o.getOrderDate());
+		g.writeFieldName(ORDER_STATUS);
+		writeStatus(g, o.getOrderStatus());
+		g.writeFieldName(ADDRESS);
+		writeNullable(g, o.getAddress(), ADDRESS_WRITER);
+		g.writeEndObject();
+	};
+
+	static final DtoJsonWriter<MemberDTO> MEMBER_WRITER = (g, m) -> {
+		g.writeStartObject();
+		g.writeFieldName(NAME);
+		g.writeString(m.getName());
+		g.writeFieldName(CITY);
+		g.writeString(m.getCity());
+		g.writeFieldName(STREET);
+		g.writeString(m.getStreet());
+		g.writeFieldName(ZIPCODE);
+		g.writeString(m.getZipcode());
+		g.writeEndObject();
+	};
+
+	@SuppressWarnings("rawtypes")
+	static final DtoJsonWriter<Result> RESULT_WRITER = (g, r) -> {
+		g.writeStartObject();
+		g.writeFieldName(COUNT);
+		g.writeNumber(r.getCount());
+		g.writeFieldName(DATA);
+		writeValue(g, r.getData());
+		g.writeEndObject();
+	};
+
+	@SuppressWarnings("rawtypes")
+	static final DtoJsonWriter<CursorResult> CURSOR_RESULT_WRITER = (g, r) -> {
+		g.writeStartObject();
+		g.writeFieldName(COUNT);
+		g.writeNumber(r.getCount());
+		g.writeFieldName(NEXT_CURSOR);
+		g.writeString(r.getNextCursor());
+		g.writeFieldName(DATA);
+		writeValue(g, r.getData());
+		g.writeEndObject();
+	};
+
+	private static final Map<Class<?>, DtoJsonWriter<?>> WRITERS = new HashMap<>();
+	static {
+		WRITERS.put(Address.class, ADDRESS_WRITER);
+		WRITERS.put(OrderDTO.class, ORDER_WRITER);
+		WRITERS.put(OrderItemDTO.class, ORDER_ITEM_WRITER);
+		WRITERS.put(OrderQueryDTO.class, ORDER_QUERY_WRITER);
+		WRITERS.put(OrderItemQueryDto.class, ORDER_ITEM_QUERY_WRITER);
+		WRITERS.put(OrderSimpleQueryDTO.class, ORDER_SIMPLE_QUERY_WRITER);
+		WRITERS.put(SimpleOrderDto.class, SIMPLE_ORDER_WRITER);
+		WRITERS.put(MemberDTO.class, MEMBER_WRITER);
+		WRITERS.put(Result.class, RESULT_WRITER);
+		WRITERS.put(CursorResult.class, CURSOR_RESULT_WRITER);
+	}
+
+	/**
+	 * 전용 작성기로 쓸 수 있는 타입인지 (DTO, DTO 목록)
+	 * - Result, CursorResult 의 data 는 실제 값의 타입으로 쓴다.
+	 */
+	public static boolean supports(Type type) {
+		ResolvableType resolved = ResolvableType.forType(type);
+		Class<?> raw = resolved.resolve();
+		if (raw == null) {
+			return false;
+		}
+		if (WRITERS.containsKey(raw)) {
+			return true;
+		}
+		if (Collection.class.isAssignableFrom(raw)) {
+			Class<?> element = resolved.asCollection().resolveGeneric(0);
+			return element != null && WRITERS.containsKey(element);
+		}
+		return false;
+	}
+
+	/**
+	 * 값의 실제 타입에 맞는 작성기로 쓴다. 목록은 JSON 배열로, 등록되지 않은 타입은 databind 로 쓴다.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void writeValue(JsonGenerator g, Object value) throws IOException {
+		if (value == null) {
+			g.writeNull();
+			return;
+		}
+		if (value instanceof Collection<?> collection) {
+			g.writeStartArray(collection, collection.size());
+			DtoJsonWriter<Object> writer = null;
+			Class<?> writerType = null;
+			for (Object element : collection) {
+				if (element == null) {
+					g.writeNull();
+					continue;
+				}
+				// 목록의 원소는 보통 같은 타입이므로 직전 작성기를 재사용한다.
+				if (element.getClass() != writerType) {
+					writerType = element.getClass();
+					writer = (DtoJsonWriter<Object>) WRITERS.get(writerType);
+				}
+				if (writer != null) {
+					writer.write(g, element);
+				} else {
+					g.writeObject(element);
+				}
+			}
+			g.writeEndArray();
+			return;
+		}
+		
+		DtoJsonWriter<Object> writer = (DtoJsonWriter<Object>) WRITERS.get(value.getClass());
+		if (writer != null) {
+			writer.write(g, value);
+		} else {
+			g.writeObject(value);
+		}
+	}
+
+	private static <T> void writeList(JsonGenerator g, List<T> values, DtoJsonWriter<T> writer) throws IOException {
+		if (values == null) {
+			g.writeNull();
+			return;
+		}
+		g.writeStartArray(values, values.size());
+		for (T value : values) {
+			writeNullable(g, value, writer);
+		}
+		g.writeEndArray();
+	}
+
+	private static <T> void writeNullable(JsonGenerator g, T value, DtoJsonWriter<T> writer) throws IOException {
+		if (value == null) {
+			g.writeNull();
+		} else {
+			writer.write(g, value);
+		}
+	}
+
+	private static void writeLong(JsonGenerator g, Long value) throws IOException {
+		if (value == null) {
+			g.writeNull();
+		} else {
+			g.writeNumber(value.longValue());
+		}
+	}
+
+	private static void writeDateTime(JsonGenerator g, LocalDateTime value) throws IOException {
+		if (value == null) {
+			g.writeNull();
+		} else {
+			g.writeString(DATE_TIME.format(value));
+		}
+	}
+
+	private static void writeStatus(JsonGenerator g, OrderStatus value) throws IOException {
+		if (value == null) {
+			g.writeNull();
+		} else {
+			g.writeString(value.name());
+		}
+	}
+
+	private static SerializableString name(String name) {
+		return new SerializedString(name);
+	}
+}
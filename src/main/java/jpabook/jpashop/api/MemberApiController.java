@@ -1,20 +1,28 @@
 package jpabook.jpashop.api;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.DataVersions.Aggregate;
+import jpabook.jpashop.service.MemberImportService;
+import jpabook.jpashop.service.MemberImportService.Format;
+import jpabook.jpashop.service.MemberImportService.ImportResult;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -25,6 +33,8 @@ import lombok.RequiredArgsConstructor;
 public class MemberApiController {
 
 	private final MemberService memberService;
+	private final MemberImportService memberImportService;
+	private final ConditionalJsonResponses conditionalJsonResponses;
 	
 	/**
 	 * 응답이 엔티티 자체인 경우
@@ -72,12 +82,33 @@ public class MemberApiController {
 		        }
 		    ]
 		}
+		
+	 	※ 조건부 GET
+	 		· ETag 는 회원 데이터 버전이다. If-None-Match 가 같으면 조회 없이 304 를 응답한다. (ConditionalJsonResponses)
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@GetMapping("/api/v2/members")
-	public Result membersV2(){
-		List<Member> members = memberService.findMembers();
-		List<MemberDTO> memberDTOs = members.stream().map(m -> 
+	public ResponseEntity<byte[]> membersV2(WebRequest request){
+		return conditionalJsonResponses.get(request, "members-v2", new Aggregate[] { Aggregate.MEMBERS }, () -> {
+			List<Member> members = memberService.findMembers();
+			List<MemberDTO> memberDTOs = members.stream().map(m -> 
+				new MemberDTO(m.getName(), m.getAddress().getCity(), m.getAddress().getStreet(), m.getAddress().getZipcode()))
+				.collect(Collectors.toList());
+			
+			return new Result(memberDTOs.size(), memberDTOs);
+		});
+	}
+	
+	/**
+	 * V3 -> StatelessSession 으로 조회
+	 * - 응답은 V2 와 같다.
+	 * - 조회한 회원이 영속성 컨텍스트에 남지 않는다. OSIV 로 요청이 끝날 때까지 엔티티와 스냅샷을 들고 있지 않으므로 대량 목록에서 메모리, CPU 를 아낀다.
+	 * - 2차 캐시(쿼리 캐시)를 사용하지 않으므로 매번 DB 에서 조회한다.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@GetMapping("/api/v3/members")
+	public Result membersV3(){
+		List<MemberDTO> memberDTOs = memberService.findMembersStateless().stream().map(m -> 
 			new MemberDTO(m.getName(), m.getAddress().getCity(), m.getAddress().getStreet(), m.getAddress().getZipcode()))
 			.collect(Collectors.toList());
 		
@@ -149,6 +180,24 @@ public class MemberApiController {
 		return new UpdateMemberResponse(findMember.getId(), findMember.getName());
 	}
 	
+	/**
+	 * 회원 일괄 등록
+	 * - 요청 바디를 스트림으로 받아 한 줄씩 처리한다. (@RequestBody 로 전체를 읽지 않는다.)
+	 * - Content-Type
+	 	· text/csv : 첫 줄 헤더 name,city,street,zipcode
+	 	· application/x-ndjson : 한 줄에 {"name":"회원1","city":"송도","street":"연수","zipcode":"12345"}
+	 * - 응답 : 전체, 등록, 거절 건수와 거절된 줄 목록
+	 */
+	@PostMapping(value = "/api/members/import", consumes = "text/csv")
+	public ImportResult importMembersCsv(InputStream body) throws IOException {
+		return memberImportService.importMembers(body, Format.CSV);
+	}
+	
+	@PostMapping(value = "/api/members/import", consumes = "application/x-ndjson")
+	public ImportResult importMembersNdjson(InputStream body) throws IOException {
+		return memberImportService.importMembers(body, Format.NDJSON);
+	}
+	
 	/**
 	 *	 
 	 * Update API response class
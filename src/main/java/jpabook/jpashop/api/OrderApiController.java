@@ -4,24 +4,39 @@ import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletResponse;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.exception.InvalidRequestException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderField;
 import jpabook.jpashop.repository.order.query.OrderFlatDTO;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderProjectionRepository;
 import jpabook.jpashop.repository.order.query.OrderQueryDTO;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.DataVersions.Aggregate;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
@@ -39,9 +54,13 @@ import lombok.RequiredArgsConstructor;
 				· 컬렉션은 페치 조인시 페이징이 불가능하다.
 				· ToOne 관계는 페치 조인으로 쿼리 수 최적화
 				· 컬렉션은 페치 조인 대신에 지연 로딩을 유지하고, hibernate.default_batch_fetch_size, @BatchSize 로 최적화
+			· 컬렉션 페이징 - 키셋(커서) 방식: V3.2
+				· offset 대신 마지막으로 조회한 order_id 다음부터 조회하므로 뒤 페이지도 첫 페이지와 같은 비용으로 조회된다.
+			· 필요한 필드만 조회 - fields 파라미터로 고른 컬럼과 조인만 조회: V2, V3 (?fields=)
 		· DTO 직접 조회
 			· JPA에서 DTO를 직접 조회: V4
 			· 컬렉션 조회 최적화 - 일대다 관계인 컬렉션은 IN 절을 활용해서 메모리에 미리 조회해서 최적화: V5
+			· 컬렉션 조회 최적화 + 파이프라인 - 루트 페이지 조회와 컬렉션 조회를 별도 스레드에서 겹쳐서 실행: V5.1
 			· 플랫 데이터 최적화 - JOIN 결과를 그대로 조회 후 애플리케이션에서 원하는 모양으로 직접 변환: V6
 
 		· 권장 순서
@@ -81,6 +100,12 @@ public class OrderApiController {
 
 	private final OrderRepository orderRepository;
 	private final OrderQueryRepository orderQueryRepository;
+	private final OrderProjectionRepository orderProjectionRepository;
+	private final ObjectMapper objectMapper;
+	private final ConditionalJsonResponses conditionalJsonResponses;
+	
+	private static final String NDJSON = "application/x-ndjson";
+	private static final int MAX_CURSOR_LIMIT = 1000;
 	
 	/**
 	 * 주문 조회 V1: 엔티티 직접 노출
@@ -89,7 +114,7 @@ public class OrderApiController {
 	 */
 	@GetMapping("/api/v1/orders")
 	public List<Order> ordersV1(){
-		List<Order> all = orderRepository.findAllByString(new OrderSearch());
+		List<Order> all = orderRepository.findAllByStringReadOnly(new OrderSearch());
 		for (Order order : all) {
 			order.getMember().getName();		// LAZY 강제 초기화
 			order.getDelivery().getAddress();	// LAZY 강제 초기화
@@ -115,7 +140,7 @@ public class OrderApiController {
 	 */
 	@GetMapping("/api/v2/orders")
 	public List<OrderDTO> ordersV2(){
-		List<Order> orders = orderRepository.findAllByString(new OrderSearch());
+		List<Order> orders = orderRepository.findAllByStringReadOnly(new OrderSearch());
 		List<OrderDTO> result = orders.stream()
 				.map(o -> new OrderDTO(o))
 				.collect(Collectors.toList());
@@ -123,6 +148,40 @@ public class OrderApiController {
 		return result;
 	}
 	
+	/**
+	 * 주문 조회 V2, V3: 필요한 필드만 조회 (fields 파라미터가 있는 경우)
+	 	* 예) /api/v2/orders?fields=id,status , /api/v3/orders?fields=id,name,orderItems.itemName
+	 		· 고를 수 있는 필드는 OrderDTO 와 같다. (id, name, orderDate, status, address, orderItems, orderItems.itemName, orderItems.orderPrice, orderItems.count)
+	 		· 알 수 없는 필드거나 고른 필드가 없으면 400 (InvalidRequestException)
+	 	
+	 	* 엔티티 대신 고른 필드의 컬럼만 조회한다. (OrderProjectionRepository)
+	 		· 고르지 않은 필드의 조인(member, delivery, item)은 하지 않고, orderItems 를 고르지 않으면 컬렉션 조회도 하지 않는다.
+	 		· 응답에도 고른 필드만 담으므로 DB 전송량, 조인, 직렬화가 모두 줄어든다.
+	 		· 조회 건수는 fields 가 없을 때와 같다. (V2 최대 1000건, V3 두번째 주문부터 100건)
+	 */
+	@GetMapping(value = "/api/v2/orders", params = "fields")
+	public List<Map<String, Object>> ordersV2_fields(@RequestParam("fields") String fields){
+		return orderProjectionRepository.findOrders(parseFields(fields), 0, 1000);
+	}
+	
+	@GetMapping(value = "/api/v3/orders", params = "fields")
+	public List<Map<String, Object>> ordersV3_fields(@RequestParam("fields") String fields){
+		return orderProjectionRepository.findOrders(parseFields(fields), 1, 100);
+	}
+	
+	private static Set<OrderField> parseFields(String fields) {
+		Set<OrderField> orderFields;
+		try {
+			orderFields = OrderField.parse(fields);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException(e.getMessage(), e);
+		}
+		if (orderFields == null) {
+			throw new InvalidRequestException("fields 에 필드가 없습니다. fields=" + fields);
+		}
+		return orderFields;
+	}
+	
 	/**
 	 * 주문 조회 V3: 엔티티를 DTO로 변환 - 페치 조인 최적화
 	 	· hibernate 6 이후 부터는 fetch 조인 시 distinct 하지 않아도 중복 제거 해준다.
@@ -138,7 +197,7 @@ public class OrderApiController {
 	 */
 	@GetMapping("/api/v3/orders")
 	public List<OrderDTO> ordersV3(){
-		List<Order> orders = orderRepository.findAllWithItem();
+		List<Order> orders = orderRepository.findAllWithItemReadOnly();
 		List<OrderDTO> result =  orders.stream()
 				.map(o -> new OrderDTO(o))
 				.collect(Collectors.toList());
@@ -187,7 +246,7 @@ public class OrderApiController {
 			@RequestParam(value = "offset", defaultValue = "0") int offset,
 			@RequestParam(value = "limit", defaultValue = "100") int limit)
 	{
-		List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+		List<Order> orders = orderRepository.findAllWithMemberDeliveryReadOnly(offset, limit);
 		List<OrderDTO> result =  orders.stream()
 				.map(o -> new OrderDTO(o))
 				.collect(Collectors.toList());
@@ -195,6 +254,50 @@ public class OrderApiController {
 		return result;
 	}
 
+	/**
+	 *
+	 * 주문 조회 V3.2: 엔티티를 DTO로 변환 - 키셋(커서) 페이징
+	 	* offset 페이징의 한계
+	 		· offset 페이징은 DB가 offset 만큼의 row 를 모두 읽은 후 버린다. 
+	 		· 그래서 5,000 페이지는 1 페이지보다 훨씬 느리다.
+	 	
+	 	* 키셋 페이징
+	 		· 이전 페이지의 마지막 order_id 를 커서로 받아서 where o.id > :lastOrderId order by o.id 로 조회한다.
+	 		· PK 인덱스로 바로 찾아가므로 페이지 위치와 상관없이 비용이 일정하다.
+	 		· 응답의 nextCursor 를 다음 요청의 after 로 넘기면 된다. nextCursor 가 null 이면 마지막 페이지다.
+	 		· 컬렉션(orderItems)은 V3.1 과 같이 hibernate.default_batch_fetch_size 로 IN 쿼리 조회된다.
+	 		· limit 은 1 이상이어야 하고 최대 1000 까지만 조회한다. (MAX_CURSOR_LIMIT) 잘못된 커서나 limit 은 400
+	 	
+	 	* 예) /api/v3.2/orders?limit=100 -> /api/v3.2/orders?after={nextCursor}&limit=100
+	 */
+	@GetMapping("/api/v3.2/orders")
+	public CursorResult<List<OrderDTO>> ordersV3_cursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "limit", defaultValue = "100") int limit)
+	{
+		if (limit < 1) {
+			throw new InvalidRequestException("limit 은 1 이상이어야 합니다. limit=" + limit);
+		}
+		limit = Math.min(limit, MAX_CURSOR_LIMIT);
+		
+		Long lastOrderId;
+		try {
+			lastOrderId = OrderCursor.decode(after);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException(e.getMessage(), e);
+		}
+		
+		List<Order> orders = orderRepository.findAllWithMemberDeliveryAfterReadOnly(lastOrderId, limit);
+		List<OrderDTO> result =  orders.stream()
+				.map(o -> new OrderDTO(o))
+				.collect(Collectors.toList());
+		
+		// limit 만큼 채워지지 않았으면 마지막 페이지
+		String nextCursor = orders.size() < limit ? null : OrderCursor.encode(orders.get(orders.size() - 1).getId());
+		
+		return new CursorResult<>(result.size(), nextCursor, result);
+	}
+
 	/**
 	 * 
 	 * 주문 조회 V4: JPA에서 DTO 직접 조회
@@ -205,12 +308,16 @@ public class OrderApiController {
 				· ToMany(1:N) 관계는 조인하면 row 수가 증가한다.
 				· row 수가 증가하지 않는 ToOne 관계는 조인으로 최적화 하기 쉬우므로 한번에 조회하고, 
 				· ToMany 관계는 최적화 하기 어려우므로 findOrderItems() 같은 별도의 메서드로 조회한다.
-				 
+		
+		* 조건부 GET
+			· ETag 는 주문, 회원, 상품 데이터 버전이다. If-None-Match 가 같으면 조회 없이 304 를 응답한다. (ConditionalJsonResponses)
+			· 같은 버전의 응답 JSON 은 캐시에서 바로 응답한다. 
 	 * 
 	 */
 	@GetMapping("/api/v4/orders")
-	public List<OrderQueryDTO> ordersV4(){
-		return orderQueryRepository.findOrderQueryDTO();
+	public ResponseEntity<byte[]> ordersV4(WebRequest request){
+		return conditionalJsonResponses.get(request, "orders-v4", new Aggregate[] { Aggregate.ORDERS, Aggregate.MEMBERS, Aggregate.ITEMS },
+				orderQueryRepository::findOrderQueryDTO);
 	}
 	
 	/**
@@ -226,6 +333,23 @@ public class OrderApiController {
 		return orderQueryRepository.findAllByDTO_optimization();
 	}
 	
+	/**
+	 * 
+ 	* 주문 조회 V5.1: JPA에서 DTO 직접 조회 - 컬렉션 조회 최적화 + 파이프라인
+	 	· V5 는 루트 조회 -> 컬렉션 조회가 요청 스레드 하나에서 순서대로 실행된다.
+	 	· V5.1 은 루트를 pageSize 씩 키셋 페이징으로 조회하고, 페이지별 컬렉션 조회를 별도 스레드 풀(orderQueryExecutor)에서 실행한다.
+	 	· 페이지 N 의 컬렉션 조회와 페이지 N+1 의 루트 조회가 동시에 실행되므로 주문이 많을수록 응답 시간이 짧아진다.
+	 	· Query: 루트 (N / pageSize)번, 컬렉션 (N / pageSize)번 (병렬)
+	 	
+	 	※ 참고
+	 		· 쿼리마다 커넥션을 따로 사용하므로 커넥션 풀에 여유가 없는 환경이라면 기존 V5(단일 스레드)를 그대로 사용하면 된다.
+	 */
+	@GetMapping("/api/v5.1/orders")
+	public List<OrderQueryDTO> ordersV5_pipelined(
+			@RequestParam(value = "pageSize", defaultValue = "500") int pageSize){
+		return orderQueryRepository.findAllByDTO_pipelined(pageSize);
+	}
+	
 	/**
 	 * 
 	 * 주문 조회 V6: JPA에서 DTO로 직접 조회, 플랫 데이터 최적화
@@ -250,6 +374,45 @@ public class OrderApiController {
 	                .collect(toList());
 	}
 	
+	/**
+	 * 
+	 * 주문 전체 내보내기: V6 플랫 데이터 스트리밍 + NDJSON
+	 	· V6 은 전체 결과를 List 로 만든 후 groupingBy 하기 때문에 주문 수 만큼 힙을 사용한다.
+	 	· 여기서는 DB 커서를 앞으로만 읽으면서 주문 1건이 완성될 때마다 바로 응답 스트림에 한 줄(JSON)씩 쓴다.
+	 	· 응답 전체를 메모리에 만들지 않으므로 주문 수와 상관없이 힙 사용량이 일정하다.
+	 	
+	 	· 응답 포맷(application/x-ndjson) : 한 줄에 주문 1건
+	 		{"orderId":1,"name":"userA",...,"orderItems":[...]}
+	 		{"orderId":2,"name":"userB",...,"orderItems":[...]}
+	 */
+	@GetMapping(value = "/api/v6/orders/export", produces = NDJSON)
+	public void exportOrdersV6(HttpServletResponse response) throws IOException {
+		response.setContentType(NDJSON);
+		response.setCharacterEncoding("UTF-8");
+		
+		// 주문 1건 마다 flush 하지 않고 JsonGenerator 버퍼가 찼을 때만 응답 스트림으로 내보낸다.
+		// 주문은 databind 대신 전용 작성기(DtoJsonWriters)로 쓴다.
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			generator.setRootValueSeparator(null);
+			orderQueryRepository.streamAllByDTO_flat(order -> {
+				try {
+					DtoJsonWriters.ORDER_QUERY_WRITER.write(generator, order);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+	
+	@Data
+	@AllArgsConstructor
+	static class CursorResult<T> {
+		private int count;
+		private String nextCursor;
+		private T data;
+	}
+	
 	@Data
 	static class OrderDTO{
 		private Long id;
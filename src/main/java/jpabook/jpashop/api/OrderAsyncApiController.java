@@ -0,0 +1,149 @@
+package jpabook.jpashop.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jpabook.jpashop.api.OrderApiController.OrderDTO;
+import jpabook.jpashop.exception.OrderExecutorRejectedException;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 
+ * 비동기 주문 API
+ 	· 기존 API(OrderApiController)는 Tomcat 요청 스레드에서 JPA 작업을 실행한다. 
+ 	  느린 목록 조회가 몰리면 요청 스레드가 모두 DB 를 기다리느라 가벼운 요청까지 처리하지 못한다.
+ 	· 여기서는 JPA 작업을 전용 스레드 풀(orderJdbcExecutor, Hikari 풀 크기)에서 실행하고 CompletableFuture 를 반환한다.
+ 		· 요청 스레드는 작업을 넘기고 바로 반환된다. 응답은 작업이 끝나면 스프링 MVC 비동기 처리로 보낸다.
+ 		· 스레드 풀이 가득 차면 기다리지 않고 503 을 응답한다. (OrderExecutorRejectedException)
+ 		· 작업이 spring.mvc.async.request-timeout 안에 끝나지 않으면 503 을 응답한다.
+ 	· 응답 스펙은 기존 API 와 같다.
+ 	
+ 	※ 참고
+ 		· 전용 스레드에는 OSIV 영속성 컨텍스트가 없다. 그래서 조회와 DTO 변환(지연 로딩)을 한 트랜잭션 안에서 끝낸다.
+ 		· 요청 단위 SQL 집계(SqlMonitorFilter)는 요청 스레드 기준이라 비동기 API 의 SQL 은 집계하지 않는다.
+ 		· 전용 스레드에서 다른 스레드 풀(orderQueryExecutor)로 쿼리를 넘기지 않는다. (OrderJdbcExecutorConfig 참고)
+ *
+ */
+@RestController
+public class OrderAsyncApiController {
+
+	private final OrderRepository orderRepository;
+	private final OrderQueryRepository orderQueryRepository;
+	private final OrderService orderService;
+	private final ThreadPoolTaskExecutor executor;
+	private final TransactionTemplate readOnlyTx;
+	private final Counter rejected;
+
+	public OrderAsyncApiController(OrderRepository orderRepository, OrderQueryRepository orderQueryRepository, OrderService orderService,
+			@Qualifier("orderJdbcExecutor") ThreadPoolTaskExecutor executor, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry) {
+		this.orderRepository = orderRepository;
+		this.orderQueryRepository = orderQueryRepository;
+		this.orderService = orderService;
+		this.executor = executor;
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.rejected = Counter.builder("jpashop.order.async.rejected")
+				.description("전용 스레드 풀이 가득 차서 거절된 비동기 주문 API 요청 수")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * 주문 조회 V3.1 (비동기) : 엔티티를 DTO로 변환 - 페이징
+	 */
+	@GetMapping("/api/async/v3.1/orders")
+	public CompletableFuture<List<OrderDTO>> ordersV3_page(
+			@RequestParam(value = "offset", defaultValue = "0") int offset,
+			@RequestParam(value = "limit", defaultValue = "100") int limit)
+	{
+		return submit(() -> readOnlyTx.execute(status -> 
+			orderRepository.findAllWithMemberDeliveryReadOnly(offset, limit).stream()
+					.map(o -> new OrderDTO(o))
+					.collect(Collectors.toList())));
+	}
+	
+	/**
+	 * 주문 조회 V5 (비동기) : JPA에서 DTO 직접 조회 - 컬렉션 조회 최적화
+	 * - 전용 스레드는 트랜잭션(커넥션)을 잡은 채로 실행되므로 IN 절 청크도 같은 EntityManager 로 순서대로 조회한다. (findAllByDTO_sequential)
+	 */
+	@GetMapping("/api/async/v5/orders")
+	public CompletableFuture<List<OrderQueryDTO>> ordersV5(){
+		return submit(() -> readOnlyTx.execute(status -> orderQueryRepository.findAllByDTO_sequential()));
+	}
+	
+	/**
+	 * 주문 (비동기)
+	 	{
+		    "memberId" : 1,
+		    "itemId" : 3, 
+		    "count" : 2
+		} 
+	 */
+	@PostMapping("/api/async/orders")
+	public CompletableFuture<CreateOrderResponse> order(@RequestBody @Valid CreateOrderRequest request){
+		return submit(() -> new CreateOrderResponse(orderService.order(request.getMemberId(), request.getItemId(), request.getCount())));
+	}
+	
+	/**
+	 * 주문 취소 (비동기)
+	 */
+	@PostMapping("/api/async/orders/{orderId}/cancel")
+	public CompletableFuture<CreateOrderResponse> cancelOrder(@PathVariable("orderId") Long orderId){
+		return submit(() -> {
+			orderService.cancelOrder(orderId);
+			return new CreateOrderResponse(orderId);
+		});
+	}
+	
+	/**
+	 * 전용 스레드 풀에 작업을 넘긴다. 가득 차면 바로 503
+	 */
+	private <T> CompletableFuture<T> submit(Supplier<T> task) {
+		try {
+			return CompletableFuture.supplyAsync(task, executor);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new OrderExecutorRejectedException("주문 처리 스레드가 모두 사용 중입니다. 잠시 후 다시 시도해 주세요.");
+		}
+	}
+	
+	@Data
+	static class CreateOrderRequest {
+		@NotNull(message = "회원 ID는 필수값 입니다.")
+		private Long memberId;
+		@NotNull(message = "상품 ID는 필수값 입니다.")
+		private Long itemId;
+		@Min(value = 1, message = "주문 수량은 1 이상이어야 합니다.")
+		private int count;
+	}
+	
+	@Data
+	@AllArgsConstructor
+	static class CreateOrderResponse {
+		private Long orderId;
+	}
+}
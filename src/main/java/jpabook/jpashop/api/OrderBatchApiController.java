@@ -0,0 +1,116 @@
+package jpabook.jpashop.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.service.OrderBatchService;
+import jpabook.jpashop.service.OrderBulkCancelService;
+import jpabook.jpashop.service.OrderBulkCancelService.BulkCancelResult;
+import jpabook.jpashop.service.OrderRequest;
+import jpabook.jpashop.service.OrderResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+public class OrderBatchApiController {
+
+	static final int MAX_ORDERS = 10000;
+
+	private final OrderBatchService orderBatchService;
+	private final OrderBulkCancelService orderBulkCancelService;
+
+	/**
+	 * 대량 주문
+	 * - 주문별 결과를 요청 순서대로 반환한다. 일부 주문이 실패해도 나머지는 저장된다.
+	 * - 한번에 최대 MAX_ORDERS 건, 주문당 상품 최대 OrderRequest.MAX_ITEMS 개 (넘으면 400)
+	 * 
+	 	요청)
+	 	{
+	 		"orders" : [
+	 			{"memberId" : 1, "items" : [{"itemId" : 2, "count" : 1}, {"itemId" : 3, "count" : 2}]},
+	 			{"memberId" : 8, "items" : [{"itemId" : 9, "count" : 1}]}
+	 		]
+	 	}
+	 	
+	 	응답)
+	 	{
+	 		"successCount" : 1,
+	 		"failureCount" : 1,
+	 		"results" : [
+	 			{"index" : 0, "orderId" : 20, "success" : true, "message" : null},
+	 			{"index" : 1, "orderId" : null, "success" : false, "message" : "재고가 부족합니다. itemId=9"}
+	 		]
+	 	}
+	 */
+	@PostMapping("/api/orders/batch")
+	public BatchOrderResponse placeOrders(@RequestBody @Valid BatchOrderRequest request) {
+		List<OrderResult> results = orderBatchService.placeOrders(request.getOrders());
+		
+		int successCount = (int) results.stream().filter(OrderResult::isSuccess).count();
+		return new BatchOrderResponse(successCount, results.size() - successCount, results);
+	}
+
+	/**
+	 * 대량 주문 취소
+	 * - orderIds 가 있으면 해당 주문, 없으면 검색조건(memberName, orderStatus)에 해당하는 주문을 취소한다. (둘 다 없으면 오류)
+	 * - 배송 완료, 이미 취소, 존재하지 않는 주문은 skippedIds 로 반환한다.
+	 * - 저장에 실패한 chunk 의 주문은 failedIds 로 반환한다. (다른 chunk 의 취소는 유지된다.)
+	 * 
+	 	요청)
+	 	{"orderIds" : [1, 2, 3]}
+	 	{"memberName" : "userA"}
+	 	
+	 	응답)
+	 	{"requested" : 3, "canceled" : 2, "skippedIds" : [3], "failedIds" : []}
+	 */
+	@PostMapping("/api/orders/batch/cancel")
+	public BulkCancelResult cancelOrders(@RequestBody BulkCancelRequest request) {
+		if (request.getOrderIds() != null && !request.getOrderIds().isEmpty()) {
+			return orderBulkCancelService.cancel(request.getOrderIds());
+		}
+		
+		// 조건 없이 전체 주문이 취소되지 않도록 막는다.
+		if (!StringUtils.hasText(request.getMemberName())) {
+			throw new IllegalArgumentException("orderIds 또는 memberName 은 필수값 입니다.");
+		}
+		
+		OrderSearch orderSearch = new OrderSearch();
+		orderSearch.setMemberName(request.getMemberName());
+		orderSearch.setOrderStatus(request.getOrderStatus());
+		return orderBulkCancelService.cancel(orderSearch);
+	}
+
+	@Data
+	static class BulkCancelRequest {
+		private List<Long> orderIds;
+		private String memberName;
+		private OrderStatus orderStatus;
+	}
+
+	@Data
+	static class BatchOrderRequest {
+		@NotEmpty(message = "주문 목록은 필수값 입니다.")
+		@Size(max = MAX_ORDERS, message = "주문 목록은 최대 " + MAX_ORDERS + "건 입니다.")
+		private List<@Valid OrderRequest> orders = new ArrayList<>();
+	}
+
+	@Data
+	@AllArgsConstructor
+	static class BatchOrderResponse {
+		private int successCount;
+		private int failureCount;
+		private List<OrderResult> results;
+	}
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 키셋 페이징 커서
+ * - 클라이언트에는 주문 id 를 그대로 노출하지 않고 Base64 로 감싼 불투명(opaque) 문자열을 준다.
+ * - 커서 포맷이 바뀌어도 API 스펙은 그대로 유지할 수 있다.
+ */
+final class OrderCursor {
+
+	private static final String PREFIX = "order:";
+
+	private OrderCursor() {}
+
+	public static String encode(Long orderId) {
+		byte[] raw = (PREFIX + orderId).getBytes(StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+	}
+
+	/**
+	 * 커서가 없으면 첫 페이지(null)
+	 */
+	public static Long decode(String cursor) {
+		if (!StringUtils.hasText(cursor)) {
+			return null;
+		}
+		
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (raw.startsWith(PREFIX)) {
+				return Long.valueOf(raw.substring(PREFIX.length()));
+			}
+		} catch (IllegalArgumentException e) {	// Base64 디코딩 실패, NumberFormatException
+		}
+		throw new IllegalArgumentException("잘못된 커서 값입니다. cursor=" + cursor);
+	}
+}
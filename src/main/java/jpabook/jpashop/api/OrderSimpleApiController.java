@@ -4,16 +4,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.OrderRepository;
-import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
-import jpabook.jpashop.repository.order.simplequery.OrderSimpleRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryCache;
+import jpabook.jpashop.service.DataVersions.Aggregate;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
@@ -37,7 +39,8 @@ import lombok.RequiredArgsConstructor;
 public class OrderSimpleApiController {
 
 	private final OrderRepository orderRepository;
-	private final OrderSimpleRepository orderSimpleRepository;
+	private final OrderSimpleQueryCache orderSimpleQueryCache;
+	private final ConditionalJsonResponses conditionalJsonResponses;
 	
 	
 	/**
@@ -73,7 +76,7 @@ public class OrderSimpleApiController {
 	 */
 	@GetMapping("/api/v1/simple-orders")
 	public List<Order> ordersV1(){
-		List<Order> all  = orderRepository.findAllByString(new OrderSearch());
+		List<Order> all  = orderRepository.findAllByStringReadOnly(new OrderSearch());
 		for (Order order : all) {
 			order.getMember().getName();		// LAZY 강제 초기화
 			order.getDelivery().getAddress();	// LAZY 강제 초기화
@@ -95,7 +98,7 @@ public class OrderSimpleApiController {
 	 */
 	@GetMapping("/api/v2/simple-orders")
 	public List<SimpleOrderDto> ordersV2(){
-		List<Order> orders  = orderRepository.findAllByString(new OrderSearch());
+		List<Order> orders  = orderRepository.findAllByStringReadOnly(new OrderSearch());
 		return orders.stream()
 				.map(o -> new SimpleOrderDto(o))
 //				.map(SimpleOrderDto::new)
@@ -110,7 +113,7 @@ public class OrderSimpleApiController {
 	 */
 	@GetMapping("/api/v3/simple-orders")
 	public List<SimpleOrderDto> ordersV3(){
-		List<Order> orders = orderRepository.findAllWithMemberDelivery();
+		List<Order> orders = orderRepository.findAllWithMemberDeliveryReadOnly();
 		return orders.stream()
 //				.map(o -> new SimpleOrderDto(o))
 				.map(SimpleOrderDto::new)
@@ -136,10 +139,16 @@ public class OrderSimpleApiController {
 			· 따라서 더 나은 방법을 선택하면 된다. 엔티티로 조회하면 리포지토리 재사용성도 좋고, 개발도 단순해진다. 
 			· 따라서 권장하는 방법은 다음과 같다. 
 		
+		※ 캐시
+			· 주문은 조회보다 변경이 훨씬 적으므로 조회 결과를 OrderSimpleQueryCache 에 캐시한다.
+			· 주문 생성/취소가 커밋되면 캐시가 무효화된다.
+			· 응답 JSON 은 주문, 회원 데이터 버전을 ETag 로 캐시한다. If-None-Match 가 같으면 304 (ConditionalJsonResponses)
+		
 	 */
 	@GetMapping("/api/v4/simple-orders")
-	public List<OrderSimpleQueryDTO> ordersV4(){
-		return orderSimpleRepository.findOrderDTOs();
+	public ResponseEntity<byte[]> ordersV4(WebRequest request){
+		return conditionalJsonResponses.get(request, "simple-orders-v4", new Aggregate[] { Aggregate.ORDERS, Aggregate.MEMBERS },
+				orderSimpleQueryCache::findOrderDTOs);
 	}
 	
 	@Data
@@ -0,0 +1,31 @@
+package jpabook.jpashop.config;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jpabook.jpashop.api.DtoJsonHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문, 회원 DTO 응답 전용 JSON 컨버터 등록 (DtoJsonHttpMessageConverter)
+ * - Jackson 컨버터보다 앞에 둔다. 지원하지 않는 타입은 Jackson 컨버터가 그대로 처리한다.
+ * - jpashop.json.dto-writers.enabled=false 이면 기존처럼 모두 Jackson databind 로 쓴다.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jpashop.json.dto-writers.enabled", havingValue = "true", matchIfMissing = true)
+public class DtoJsonConfig implements WebMvcConfigurer {
+
+	private final ObjectMapper objectMapper;
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(0, new DtoJsonHttpMessageConverter(objectMapper));
+	}
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 비동기 주문 API(OrderAsyncApiController)의 JPA 작업을 실행하는 전용 스레드 풀
+ * 
+ 	· 스레드 수는 Hikari 커넥션 풀 크기에 맞춘다. 스레드가 더 많아도 커넥션을 기다리기만 하므로 의미가 없다.
+ 	· 큐가 가득 차면 바로 거절(AbortPolicy)하고 API 는 503 을 응답한다. 
+ 	  느린 조회가 몰려도 Tomcat 스레드를 붙잡지 않고, 대기 시간이 무한히 늘어나지 않는다.
+ 	· 스레드 풀 메트릭은 스프링 부트가 executor.* 로 등록한다. (/actuator/metrics/executor.active?tag=name:orderJdbcExecutor)
+ 	
+ 	※ 참고
+ 		· orderQueryExecutor(QueryExecutorConfig)는 요청 스레드의 작업을 나눠서 실행하는 풀이라 가득 차면 요청 스레드에서 직접 실행한다. 
+ 		  이 풀은 요청 스레드를 비우는 것이 목적이므로 요청 스레드에서 실행하지 않는다.
+ 		· 스레드 수가 커넥션 수와 같으므로 작업은 커넥션 1개로 끝나야 한다. 
+ 		  트랜잭션(커넥션)을 잡은 작업이 orderQueryExecutor 처럼 커넥션이 또 필요한 작업을 기다리면, 모든 스레드가 커넥션을 잡고 기다리는 동안
+ 		  넘긴 작업은 커넥션을 얻지 못해 Hikari connection-timeout 까지 멈춘다. (비동기 V5 는 findAllByDTO_sequential 사용)
+ */
+@Configuration
+public class OrderJdbcExecutorConfig {
+
+	@Bean
+	public ThreadPoolTaskExecutor orderJdbcExecutor(DataSource dataSource,
+			@Value("${jpashop.order.async.pool-size:0}") int poolSize,
+			@Value("${jpashop.order.async.queue-capacity:50}") int queueCapacity) {
+		if (poolSize <= 0) {
+			poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+		}
+		
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("order-jdbc-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+}
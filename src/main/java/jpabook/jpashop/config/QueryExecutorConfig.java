@@ -0,0 +1,55 @@
+package jpabook.jpashop.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jpabook.jpashop.monitoring.RequestSqlStats;
+
+/**
+ * 조회 쿼리를 병렬로 실행하기 위한 전용 스레드 풀
+ * 
+ 	· 작업마다 별도의 EntityManager(커넥션)를 사용하므로 pool-size 는 Hikari 커넥션 풀보다 작게 잡아야 한다.
+ 	· 큐가 가득 차면 요청 스레드에서 직접 실행(CallerRunsPolicy)하므로 작업이 버려지지 않고 자연스럽게 속도가 조절된다.
+ 	· 작업을 넘긴 요청의 SQL 집계(RequestSqlStats)를 같이 넘겨준다.
+ 	· 작업을 넘기고 기다리는 요청 수는 orderQueryFanOutPermits 로 제한한다. (pool-size 만 작게 잡아서는 커넥션 풀 고갈을 막을 수 없다.)
+ */
+@Configuration
+public class QueryExecutorConfig {
+
+	@Bean
+	public ThreadPoolTaskExecutor orderQueryExecutor(
+			@Value("${jpashop.query.executor.pool-size:4}") int poolSize,
+			@Value("${jpashop.query.executor.queue-capacity:100}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("order-query-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setTaskDecorator(RequestSqlStats::propagate);
+		return executor;
+	}
+
+	/**
+	 * orderQueryExecutor 로 청크 작업을 넘기고 기다릴 수 있는 요청 수 (Hikari 커넥션 풀 크기 - pool-size)
+	 * - 요청 스레드는 OSIV 로 자기 커넥션을 잡은 채로 청크 작업을 기다리고, 청크 작업은 각자 커넥션이 필요하다.
+	 * - 기다리는 요청이 커넥션을 모두 잡으면 청크 작업이 커넥션을 얻지 못해 connection-timeout 까지 멈춘다.
+	 * - 기다리는 요청 수 + pool-size 가 커넥션 풀 크기를 넘지 않으면 청크 작업은 항상 커넥션을 얻는다.
+	 * - 허가를 얻지 못한 요청은 기다리지 않고(tryAcquire) 자기 EntityManager 로 청크를 순서대로 조회한다. (OrderQueryRepository)
+	 */
+	@Bean
+	public Semaphore orderQueryFanOutPermits(DataSource dataSource,
+			@Value("${jpashop.query.executor.pool-size:4}") int poolSize) {
+		int connections = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+		return new Semaphore(Math.max(0, connections - poolSize));
+	}
+}
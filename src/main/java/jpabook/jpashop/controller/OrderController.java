@@ -2,6 +2,7 @@ package jpabook.jpashop.controller;
 
 import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,13 +10,16 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.OrderOutcomeUnknownException;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntakeQueue;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 
@@ -26,6 +30,7 @@ public class OrderController {
 	private final OrderService orderService;
 	private final MemberService memberService;
 	private final ItemService itemService;
+	private final ObjectProvider<OrderIntakeQueue> orderIntakeQueue;
 	
 	@GetMapping("/order")
 	public String creatForm(Model model) {
@@ -38,10 +43,25 @@ public class OrderController {
 		return "order/orderForm";
 	}
 	
+	/**
+	 * 주문
+	 * - jpashop.order.intake.enabled=true 이면 대기열에 넣고 그룹 커밋으로 저장될 때까지 기다린다. (OrderIntakeQueue)
+	 * - 결과를 확인할 수 없으면(OrderOutcomeUnknownException) 오류 화면 대신 주문 목록으로 이동해서 안내 메시지를 보여준다. (다시 주문하지 않도록)
+	 */
 	@PostMapping("/order")
-	public String order(@RequestParam("memberId") Long memeberId, @RequestParam("itemId") Long itemId, @RequestParam("count") int count) {
+	public String order(@RequestParam("memberId") Long memeberId, @RequestParam("itemId") Long itemId, @RequestParam("count") int count,
+			RedirectAttributes redirectAttributes) {
 		
-		orderService.order(memeberId, itemId, count);
+		OrderIntakeQueue intake = orderIntakeQueue.getIfAvailable();
+		if (intake != null) {
+			try {
+				intake.order(memeberId, itemId, count);
+			} catch (OrderOutcomeUnknownException e) {
+				redirectAttributes.addFlashAttribute("message", e.getMessage());
+			}
+		} else {
+			orderService.order(memeberId, itemId, count);
+		}
 		return "redirect:/orders"; 
 	}
 	
@@ -8,16 +8,36 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * 카테고리
+ * 
+ 	* 경로(path) - Materialized Path
+ 		· 부모(parent) 참조만 있으면 하위 트리를 조회할 때 단계마다 지연 로딩 쿼리가 실행된다.
+ 		· 조상 카테고리 id 를 루트부터 이어 붙인 문자열을 같이 저장한다. 
+ 			· 예) 루트 "/" , 1번의 자식 "/1/" , 1번 -> 5번의 자식 "/1/5/"
+ 		· X 의 하위 카테고리는 path like 'X.path + X.id + /%' 하나로 조회된다. (idx_category_path)
+ 		· addChildCategory 에서 자식과 그 하위 카테고리의 경로를 다시 계산한다.
+ 		· 저장 전(@PrePersist, @PreUpdate)에도 다시 계산한다. 부모가 먼저 저장되어 id 가 있어야 한다.
+ 		
+ 	※ 참고
+ 		· 경로에는 조상의 id 만 들어가고 자기 자신은 들어가지 않는다. 
+ 		  id 는 persist 시점에 정해지므로 자기 id 를 넣으면 insert 후 update 가 한번 더 실행된다.
+ */
 @Entity
+@Table(indexes = @Index(name = "idx_category_path", columnList = "path"))
 @Getter @Setter
 public class Category {
 
@@ -27,6 +47,8 @@ public class Category {
 	
 	private String name;
 	
+	private String path;
+	
 	@ManyToMany
 	@JoinTable(name = "category_item"
 		, joinColumns = @JoinColumn(name = "category_id")
@@ -44,6 +66,56 @@ public class Category {
 	public void addChildCategory(Category child) {
 		this.child.add(child);
 		child.setParent(this);
+		child.refreshPath();
+	}
+	
+	/**
+	 * 하위 카테고리 경로의 앞부분 (자기 경로 + 자기 id)
+	 */
+	public String getSubtreePath() {
+		if (path == null || id == null) {
+			throw new IllegalStateException("저장되지 않은 카테고리입니다.");
+		}
+		return path + id + "/";
+	}
+	
+	/**
+	 * 부모 경로로 자기 경로를 다시 계산하고, 바뀌었으면 하위 카테고리도 다시 계산한다.
+	 * - 부모가 아직 저장 전(id 없음)이면 저장 시점(@PrePersist)에 계산한다.
+	 */
+	private void refreshPath() {
+		String newPath;
+		if (parent == null) {
+			newPath = "/";
+		} else if (parent.getId() != null && parent.getPath() != null) {
+			newPath = parent.getSubtreePath();
+		} else {
+			return;
+		}
+		
+		if (!newPath.equals(path)) {
+			path = newPath;
+			if (id != null) {
+				child.forEach(Category::refreshPath);
+			}
+		}
+	}
+	
+	/**
+	 * 저장 전 경로 확인
+	 * - flush 중에는 다른 엔티티를 바꾸지 않도록 자기 경로만 계산한다. (하위 카테고리는 각자 다시 계산된다.)
+	 */
+	@PrePersist
+	@PreUpdate
+	void checkPath() {
+		if (parent == null) {
+			path = "/";
+			return;
+		}
+		if (parent.getId() == null || parent.getPath() == null) {
+			throw new IllegalStateException("부모 카테고리를 먼저 저장해야 합니다. name=" + name);
+		}
+		path = parent.getSubtreePath();
 	}
 	
 }
@@ -3,19 +3,36 @@ package jpabook.jpashop.domain;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * 2차 캐시
+ * - READ_WRITE : 변경감지(Dirty Checking)로 수정하면 커밋 시점에 캐시도 같이 갱신된다. (MemberService.updateMember)
+ * 
+ * 회원 이름 유니크 제약조건 (uk_member_name)
+ * - 동시에 같은 이름으로 가입해도 DB 가 하나만 허용한다. (MemberService.join)
+ * - 유니크 인덱스가 같이 만들어지므로 이름 조회(findByName, existsByName)도 이 인덱스를 사용한다.
+ */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 public class Member {
 
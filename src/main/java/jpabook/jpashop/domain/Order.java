@@ -12,18 +12,29 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jpabook.jpashop.service.stock.StockManager;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * 인덱스
+ * - idx_orders_member : 회원별 주문 조회, 회원 조인 (OrderRepository.findAllByCriteria 의 member_id in (...))
+ * - idx_orders_status : 주문상태 검색 + order_id 순 조회 (findAllByString, findCancelableIds)
+ * - 인덱스를 사용하지 않는 쿼리가 생기면 QueryPlanTest 가 실패한다.
+ */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+		@Index(name = "idx_orders_member", columnList = "member_id"),
+		@Index(name = "idx_orders_status", columnList = "status, order_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
@@ -96,9 +107,22 @@ public class Order {
 	
 	//=== 비지니스 로직 ===//
 	/**
-	 * 주문 취소
+	 * 주문 취소 (재고는 StockManager 로 원복)
+	 * - 상품 엔티티를 조회하지 않는다. (OrderService.cancelOrder)
+	 * - 엔티티로 재고를 원복하면 메모리 재고 원장(StockLedger)과 DB 재고가 어긋나므로 재고 원복은 StockManager 로만 한다.
 	 */
-	public void cancel() {
+	public void cancel(StockManager stockManager) {
+		markCanceled();
+		
+		for (OrderItem orderItem : orderItems) {
+			orderItem.cancel(stockManager);
+		}
+	}
+	
+	/**
+	 * 주문 상태만 취소로 변경 (재고 원복 X)
+	 */
+	public void markCanceled() {
 		// 배송 상태인 경우 주문 취소 안됨.
 		if(DeliveryStatus.COMP.equals(delivery.getStatus())) {
 			throw new IllegalStateException("이미 배송 완료된 상품은 취소가 불가능 합니다.");
@@ -106,12 +130,6 @@ public class Order {
 
 		// 주문 상태를 cancel로 변경
 		this.setStatus(OrderStatus.CANCEL);
-		
-		// orderitem cancel 처리, (재고 수량 원복)
-		for (OrderItem orderItem : orderItems) {
-			orderItem.cancel();
-		}
-		
 	}
 	
 	
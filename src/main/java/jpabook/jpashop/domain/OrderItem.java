@@ -7,15 +7,23 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.stock.StockManager;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * 인덱스
+ * - idx_order_item_order : 주문의 주문상품 조회 (orderItems 지연 로딩, OrderQueryRepository 의 order_id in (...))
+ */
 @Entity
+@Table(indexes = @Index(name = "idx_order_item_order", columnList = "order_id"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
@@ -55,13 +63,28 @@ public class OrderItem {
 		return orderItem;
 	}
 	
+	/**
+	 * 주문상품 생성 (재고 차감 X)
+	 * - 재고를 DB 에서 이미 차감한 경우 사용한다. (ItemRepository.removeStock)
+	 * - item 은 프록시여도 된다. 재고를 건드리지 않으므로 상품을 조회하지 않는다.
+	 */
+	public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+		OrderItem orderItem = new OrderItem();
+		orderItem.setItem(item);
+		orderItem.setOrderPrice(orderPrice);
+		orderItem.setCount(count);
+		
+		return orderItem;
+	}
+	
 	
 	//=== 비지니스 로직 ===//
 	/**
-	 * 재고 수량 원복 
-	 */ 
-	public void cancel() {
-		getItem().addStock(count);
+	 * 재고 수량 원복 (StockManager)
+	 * - 상품 엔티티를 조회하지 않는다. (getItem().getId() 는 프록시를 초기화하지 않는다.)
+	 */
+	public void cancel(StockManager stockManager) {
+		stockManager.release(getItem().getId(), count);
 	}
 
 	//=== 조회 로직 ===//
@@ -3,6 +3,10 @@ package jpabook.jpashop.domain.item;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorColumn;
 import jakarta.persistence.Entity;
@@ -16,7 +20,16 @@ import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * 2차 캐시
+ * - OrderService.order, OrderController.creatForm 에서 매번 조회하므로 2차 캐시에 올려둔다.
+ * - READ_WRITE : 변경감지(Dirty Checking)로 수정하면 커밋 시점에 캐시도 같이 갱신된다. (ItemService.updateItem1, updateItemBook)
+ * - 상속 관계 엔티티(Book, Album, Movie)는 부모의 region 을 같이 사용한다.
+ * - JPQL 벌크 연산(update, delete)은 하이버네이트가 Item region 전체를 비운다.
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
 @Getter @Setter
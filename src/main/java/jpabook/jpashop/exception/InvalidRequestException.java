@@ -0,0 +1,22 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 요청 파라미터가 잘못됨 (400)
+ * - 알 수 없는 fields, 잘못된 커서, 범위를 벗어난 offset/limit 처럼 클라이언트가 고쳐서 다시 요청해야 하는 경우
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends RuntimeException {
+	public InvalidRequestException() {
+	}
+	
+	public InvalidRequestException(String message) {
+		super(message);
+	}
+	
+	public InvalidRequestException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 비동기 주문 API 전용 스레드 풀이 가득 차서 요청을 받을 수 없음 (503)
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderExecutorRejectedException extends RuntimeException {
+	public OrderExecutorRejectedException() {
+	}
+	
+	public OrderExecutorRejectedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 주문 접수 대기열이 가득 차서 주문을 받을 수 없음 (503)
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIntakeRejectedException extends RuntimeException {
+	public OrderIntakeRejectedException() {
+	}
+	
+	public OrderIntakeRejectedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 주문은 접수되었지만 처리 결과를 기다리지 못함 (202)
+ * - 주문은 대기열에 남아 있어 나중에 저장될 수 있다. 실패가 아니므로 다시 주문하지 말고 주문 목록에서 확인한다.
+ */
+@ResponseStatus(HttpStatus.ACCEPTED)
+public class OrderOutcomeUnknownException extends RuntimeException {
+	public OrderOutcomeUnknownException() {
+	}
+	
+	public OrderOutcomeUnknownException(String message) {
+		super(message);
+	}
+	
+	public OrderOutcomeUnknownException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
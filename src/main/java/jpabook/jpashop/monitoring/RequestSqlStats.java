@@ -0,0 +1,133 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 요청(스레드) 단위 SQL 실행 통계
+ * 
+ 	· 하이버네이트 Statistics 는 애플리케이션 전체 합계라 요청별 값을 알 수 없다. 그래서 요청 스레드에 직접 모은다.
+ 		· statements : 실행한 SQL 수 (SqlCountingStatementInspector)
+ 		· entityLoads : 로딩된 엔티티 수 (PostLoad 이벤트, 2차 캐시에서 가져온 것도 포함)
+ 		· collectionFetches : 초기화된 컬렉션 수 (InitializeCollection 이벤트)
+ 		· statementShapes : SQL 문장별 실행 횟수. 하이버네이트가 만든 SQL 은 파라미터가 ? 로 바인딩되므로 문장 자체가 쿼리 모양이다.
+ 	· 같은 SQL 이 반복되면 N+1 을 의심할 수 있다. (maxRepeats)
+ 	· 조회 전용 스레드 풀(orderQueryExecutor)에서 실행하는 쿼리도 같이 집계하도록 propagate 로 넘겨준다. 
+ 	  그래서 값은 여러 스레드에서 동시에 증가할 수 있다.
+ */
+public class RequestSqlStats {
+
+	private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+	private final AtomicInteger statements = new AtomicInteger();
+	private final AtomicInteger entityLoads = new AtomicInteger();
+	private final AtomicInteger collectionFetches = new AtomicInteger();
+	private final Map<String, Integer> statementShapes = new ConcurrentHashMap<>();
+
+	/**
+	 * 현재 스레드에서 집계 시작
+	 */
+	public static RequestSqlStats start() {
+		RequestSqlStats stats = new RequestSqlStats();
+		CURRENT.set(stats);
+		return stats;
+	}
+
+	/**
+	 * 현재 스레드의 집계 종료
+	 */
+	public static void finish() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * 현재 스레드의 집계 (집계중이 아니면 null)
+	 */
+	public static RequestSqlStats current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * 다른 스레드에서 실행되는 작업도 현재 요청의 집계에 포함시킨다. (TaskDecorator)
+	 */
+	public static Runnable propagate(Runnable task) {
+		RequestSqlStats stats = CURRENT.get();
+		if (stats == null) {
+			return task;
+		}
+		
+		return () -> {
+			RequestSqlStats previous = CURRENT.get();
+			CURRENT.set(stats);
+			try {
+				task.run();
+			} finally {
+				if (previous == null) {
+					CURRENT.remove();
+				} else {
+					CURRENT.set(previous);
+				}
+			}
+		};
+	}
+
+	void statement(String sql) {
+		statements.incrementAndGet();
+		statementShapes.merge(sql, 1, Integer::sum);
+	}
+
+	void entityLoaded() {
+		entityLoads.incrementAndGet();
+	}
+
+	void collectionFetched() {
+		collectionFetches.incrementAndGet();
+	}
+
+	public int getStatements() {
+		return statements.get();
+	}
+
+	public int getEntityLoads() {
+		return entityLoads.get();
+	}
+
+	public int getCollectionFetches() {
+		return collectionFetches.get();
+	}
+
+	/**
+	 * SQL 문장별 실행 횟수
+	 */
+	public Map<String, Integer> getStatementShapes() {
+		return Collections.unmodifiableMap(statementShapes);
+	}
+
+	/**
+	 * 가장 많이 반복된 SQL 의 실행 횟수
+	 */
+	public int getMaxRepeats() {
+		int max = 0;
+		for (int count : statementShapes.values()) {
+			max = Math.max(max, count);
+		}
+		return max;
+	}
+
+	/**
+	 * 가장 많이 반복된 SQL
+	 */
+	public String getMostRepeatedStatement() {
+		String statement = null;
+		int max = 0;
+		for (Map.Entry<String, Integer> entry : statementShapes.entrySet()) {
+			if (entry.getValue() > max) {
+				max = entry.getValue();
+				statement = entry.getKey();
+			}
+		}
+		return statement;
+	}
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 SQL 을 실행하기 직전에 호출된다. (hibernate.session_factory.statement_inspector)
+ * - 지연 로딩, 배치 페치(default_batch_fetch_size) 로 실행되는 SQL 도 모두 여기를 거친다.
+ * - SQL 은 변경하지 않는다.
+ */
+public class SqlCountingStatementInspector implements StatementInspector {
+
+	@Override
+	public String inspect(String sql) {
+		RequestSqlStats stats = RequestSqlStats.current();
+		if (stats != null) {
+			stats.statement(sql);
+		}
+		return sql;
+	}
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.monitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 요청 단위 SQL 집계 / N+1 감지
+ * - jpashop.sql-monitor.enabled=false 이면 아무것도 등록하지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpashop.sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitorConfig {
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlCountingStatementInspector() {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlCountingStatementInspector());
+	}
+
+	@Bean
+	public SqlMonitorFilter sqlMonitorFilter(MeterRegistry meterRegistry,
+			@Value("${jpashop.sql-monitor.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+		return new SqlMonitorFilter(meterRegistry, nPlusOneThreshold);
+	}
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.monitoring;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 엔티티 로딩, 컬렉션 초기화 횟수 집계
+ * - 하이버네이트 기본 리스너 뒤에 추가로 등록한다. (기본 동작은 그대로)
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class SqlMonitorEventListener implements PostLoadEventListener, InitializeCollectionEventListener {
+
+	private final EntityManagerFactory emf;
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_LOAD, this);
+		registry.appendListeners(EventType.INIT_COLLECTION, this);
+	}
+
+	@Override
+	public void onPostLoad(PostLoadEvent event) {
+		RequestSqlStats stats = RequestSqlStats.current();
+		if (stats != null) {
+			stats.entityLoaded();
+		}
+	}
+
+	@Override
+	public void onInitializeCollection(InitializeCollectionEvent event) {
+		RequestSqlStats stats = RequestSqlStats.current();
+		if (stats != null) {
+			stats.collectionFetched();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.monitoring;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 요청 단위 SQL 집계
+ * 
+ 	· 요청이 끝나면 로그와 메트릭을 남긴다.
+ 		· 로그 : debug 레벨 (logging.level.jpabook.jpashop.monitoring=debug)
+ 		· 메트릭 : jpashop.http.sql.statements (uri 패턴별 요청당 SQL 수)
+ 	· 같은 SQL 이 n-plus-one-threshold 번을 넘게 반복되면 N+1 의심으로 warn 로그 + jpashop.http.sql.n_plus_one 카운터를 남긴다.
+ 	· 응답 헤더는 SqlMonitorResponseAdvice 에서 추가한다. (필터에서는 응답이 이미 커밋된 뒤라 헤더를 추가할 수 없다.)
+ 	
+ 	※ 참고
+ 		· 요청마다 카운터 증가와 SQL 문자열 해시맵 조회만 하므로 운영에서 켜두어도 부담이 적다.
+ 		· 메트릭 태그는 요청 uri 가 아니라 매핑된 패턴(/api/v1/orders/{id})을 사용한다. (태그 수 폭증 방지)
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SqlMonitorFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry meterRegistry;
+	private final int nPlusOneThreshold;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		RequestSqlStats stats = RequestSqlStats.start();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			RequestSqlStats.finish();
+			report(request, stats);
+		}
+	}
+
+	private void report(HttpServletRequest request, RequestSqlStats stats) {
+		if (stats.getStatements() == 0 && stats.getEntityLoads() == 0) {
+			return;
+		}
+		
+		String uri = uriPattern(request);
+		DistributionSummary.builder("jpashop.http.sql.statements")
+				.tag("uri", uri)
+				.register(meterRegistry)
+				.record(stats.getStatements());
+		
+		log.debug("{} {} : statements={}, entityLoads={}, collectionFetches={}", 
+				request.getMethod(), request.getRequestURI(), stats.getStatements(), stats.getEntityLoads(), stats.getCollectionFetches());
+		
+		int repeats = stats.getMaxRepeats();
+		if (repeats > nPlusOneThreshold) {
+			Counter.builder("jpashop.http.sql.n_plus_one")
+					.tag("uri", uri)
+					.register(meterRegistry)
+					.increment();
+			log.warn("N+1 의심 {} {} : 같은 SQL {}회 실행 (statements={}) - {}", 
+					request.getMethod(), uri, repeats, stats.getStatements(), stats.getMostRepeatedStatement());
+		}
+	}
+
+	private String uriPattern(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return pattern != null ? pattern.toString() : "UNKNOWN";
+	}
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.monitoring;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * API 응답 헤더에 SQL 집계 추가
+ * 
+ 	· X-SQL-Statements, X-SQL-Entity-Loads, X-SQL-Collection-Fetches, X-SQL-Max-Repeats
+ 	
+ 	※ 참고
+ 		· 응답 바디를 쓰기 직전까지의 값이다. 
+ 		  엔티티를 직접 반환하는 경우(V1) JSON 변환 중에 지연 로딩으로 실행되는 SQL 은 헤더에 포함되지 않는다. (로그, 메트릭에는 포함)
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "jpashop.sql-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitorResponseAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+		RequestSqlStats stats = RequestSqlStats.current();
+		if (stats != null) {
+			HttpHeaders headers = response.getHeaders();
+			headers.set("X-SQL-Statements", String.valueOf(stats.getStatements()));
+			headers.set("X-SQL-Entity-Loads", String.valueOf(stats.getEntityLoads()));
+			headers.set("X-SQL-Collection-Fetches", String.valueOf(stats.getCollectionFetches()));
+			headers.set("X-SQL-Max-Repeats", String.valueOf(stats.getMaxRepeats()));
+		}
+		return body;
+	}
+}
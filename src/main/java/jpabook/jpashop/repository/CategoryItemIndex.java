@@ -0,0 +1,166 @@
+package jpabook.jpashop.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.CategoryItemChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 카테고리별 상품 id 압축 비트맵 (Roaring Bitmap)
+ *
+ 	· 여러 카테고리로 상품을 거르면 카테고리마다 category_item 조인 테이블을 읽는다.
+ 	· 카테고리 id -> 상품 id 비트맵을 메모리에 들고 있고, 조건은 비트맵 연산으로 계산한다.
+ 		· 모든 카테고리(AND) : 교집합 (작은 비트맵부터)
+ 		· 하나라도(OR) : 합집합
+ 	· 결과는 오름차순 상품 id 이므로 필요한 페이지의 id 만 골라서 ItemRepository 로 조회한다. (IN 1번)
+ 	· 기동 시(ApplicationReadyEvent) category_item 테이블로 만들고, 상품 추가/제외가 커밋되면(CategoryItemChangedEvent) 해당 행을 다시 읽어서 반영한다.
+ 	· 인덱스로 답할 수 없으면(기동 전) null 을 반환하고, 호출하는 쪽은 DB 로 조회한다.
+
+ 	※ 참고
+ 		· 비트맵은 변경하지 않는다. 변경 시 복사본을 바꿔서 교체하므로 조회하는 쪽은 락 없이 사용한다. (상품 추가/제외는 드물다)
+ 		· 연속된 id 는 run 컨테이너로 압축된다. (runOptimize)
+ 		· 다른 서버나 SQL 로 직접 변경한 데이터는 반영되지 않는다. 이 경우 재기동으로 다시 만든다.
+ */
+@Slf4j
+@Component
+public class CategoryItemIndex {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ConcurrentHashMap<Long, Roaring64NavigableMap> bitmaps = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+
+	public CategoryItemIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+
+		Gauge.builder("jpashop.category.item_index.categories", bitmaps, ConcurrentHashMap::size).register(meterRegistry);
+		Gauge.builder("jpashop.category.item_index.bytes", bitmaps,
+				map -> map.values().stream().mapToLong(Roaring64NavigableMap::getLongSizeInBytes).sum()).register(meterRegistry);
+	}
+
+	/**
+	 * category_item 테이블로 비트맵을 만든다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void load() {
+		long started = System.currentTimeMillis();
+		Map<Long, Roaring64NavigableMap> loaded = new HashMap<>();
+		jdbcTemplate.query("select category_id, item_id from category_item", rs -> {
+			loaded.computeIfAbsent(rs.getLong(1), id -> new Roaring64NavigableMap()).addLong(rs.getLong(2));
+		});
+		loaded.values().forEach(Roaring64NavigableMap::runOptimize);
+
+		bitmaps.clear();
+		bitmaps.putAll(loaded);
+		ready = true;
+		log.info("카테고리 상품 비트맵 생성 : 카테고리 {}개 ({} ms)", bitmaps.size(), System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * 상품 추가/제외 반영
+	 * - 이벤트의 추가/제외 여부 대신 커밋된 category_item 행을 다시 읽어서 반영한다.
+	 * - 같은 상품을 동시에 추가/제외하면 커밋 순서와 이벤트 처리 순서가 다를 수 있다. 
+	 *   현재 행을 읽으면 늦게 처리된 이벤트가 DB 와 다른 상태로 덮어쓰지 않는다.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public synchronized void onCategoryItemChanged(CategoryItemChangedEvent event) {
+		Integer rows = jdbcTemplate.queryForObject(
+				"select count(*) from category_item where category_id = ? and item_id = ?",
+				Integer.class, event.getCategoryId(), event.getItemId());
+		boolean member = rows != null && rows > 0;
+
+		Roaring64NavigableMap current = bitmaps.get(event.getCategoryId());
+		if (current != null && current.contains(event.getItemId()) == member) {
+			return;
+		}
+		Roaring64NavigableMap next = current == null ? new Roaring64NavigableMap() : copy(current);
+
+		if (member) {
+			next.addLong(event.getItemId());
+		} else {
+			next.removeLong(event.getItemId());
+		}
+		bitmaps.put(event.getCategoryId(), next);
+	}
+
+	/**
+	 * 카테고리 조건에 맞는 상품 id
+	 *
+	 * @param matchAll true : 모든 카테고리에 속한 상품(AND), false : 하나라도 속한 상품(OR)
+	 * @return 오름차순 상품 id 비트맵 (호출한 쪽 전용 복사본), 인덱스로 답할 수 없으면 null
+	 */
+	public Roaring64NavigableMap findItemIds(Collection<Long> categoryIds, boolean matchAll) {
+		if (!ready) {
+			return null;
+		}
+
+		List<Roaring64NavigableMap> lists = new ArrayList<>(categoryIds.size());
+		for (Long categoryId : categoryIds) {
+			Roaring64NavigableMap bitmap = bitmaps.get(categoryId);
+			if (bitmap == null) {
+				if (matchAll) {
+					return new Roaring64NavigableMap();
+				}
+				continue;
+			}
+			lists.add(bitmap);
+		}
+		if (lists.isEmpty()) {
+			return new Roaring64NavigableMap();
+		}
+
+		Roaring64NavigableMap result;
+		if (matchAll) {
+			// 가장 작은 비트맵을 복사해서 나머지와 교집합
+			lists.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongCardinality));
+			result = copy(lists.get(0));
+			for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+				result.and(lists.get(i));
+			}
+		} else {
+			result = copy(lists.get(0));
+			for (int i = 1; i < lists.size(); i++) {
+				result.or(lists.get(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * offset 번째부터 limit 개 (오름차순)
+	 * - offset 은 0 이상, limit 은 1 이상이어야 한다. (음수 rank 로 select 하지 않도록)
+	 */
+	public static List<Long> page(Roaring64NavigableMap ids, long offset, int limit) {
+		if (offset < 0 || limit < 1) {
+			throw new IllegalArgumentException("offset 은 0 이상, limit 은 1 이상이어야 합니다. offset=" + offset + ", limit=" + limit);
+		}
+		
+		long end = Math.min(ids.getLongCardinality(), offset + limit);
+		List<Long> page = new ArrayList<>();
+		for (long rank = offset; rank < end; rank++) {
+			page.add(ids.select(rank));
+		}
+		return page;
+	}
+
+	private static Roaring64NavigableMap copy(Roaring64NavigableMap bitmap) {
+		Roaring64NavigableMap copy = new Roaring64NavigableMap();
+		copy.or(bitmap);
+		return copy;
+	}
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.repository;
+
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+	private final EntityManager em;
+
+	/**
+	 * 저장
+	 */
+	public void save(Category category) {
+		em.persist(category);
+	}
+
+	/**
+	 * 단건 조회
+	 */
+	public Category findOne(Long categoryId) {
+		return em.find(Category.class, categoryId);
+	}
+
+	/**
+	 * 카테고리와 그 하위 카테고리 전체의 상품 조회
+	 * 
+	 	· 카테고리 단계마다 자식을 조회하고, 카테고리마다 category_item 을 조회하지 않는다.
+	 	· 하위 카테고리는 경로 앞부분으로 찾으므로 깊이와 상관없이 쿼리 1번이다. (idx_category_path)
+	 		· 경로는 숫자와 '/' 뿐이므로 앞부분 조건을 범위 조건으로 바꾼다. 예) "/1/5/" 로 시작 -> "/1/5/" 이상 "/1/50" 미만
+	 	· 자기 자신(c.id)과 하위 카테고리(c.path)는 union 으로 따로 조회한다.
+	 		· c.id = ? or c.path ... 처럼 서로 다른 컬럼을 or 로 묶으면 인덱스를 쓰지 못하고 category 를 전체 스캔한다.
+	 	· 여러 카테고리에 같이 속한 상품은 한번만 조회된다. (in 서브쿼리)
+	 	
+	 * @param subtreePath 카테고리의 하위 경로 (Category.getSubtreePath)
+	 */
+	public List<Item> findItemsInSubtree(Long categoryId, String subtreePath, int offset, int limit) {
+		return em.createQuery("select i from Item i where i.id in ("
+						+ "select ci1.id from Category c1 join c1.items ci1 where c1.id = :categoryId"
+						+ " union "
+						+ "select ci2.id from Category c2 join c2.items ci2 where c2.path >= :pathFrom and c2.path < :pathTo)"
+						+ " order by i.id", Item.class)
+				.setParameter("categoryId", categoryId)
+				.setParameter("pathFrom", subtreePath)
+				.setParameter("pathTo", nextPrefix(subtreePath))
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.setFirstResult(offset)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	// prefix 로 시작하는 문자열보다 큰 가장 작은 문자열 (마지막 문자 + 1)
+	private static String nextPrefix(String prefix) {
+		char last = prefix.charAt(prefix.length() - 1);
+		return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+	}
+}
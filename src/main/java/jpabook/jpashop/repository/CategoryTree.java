@@ -0,0 +1,229 @@
+package jpabook.jpashop.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.CategoryChangedEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 카테고리 트리 스냅샷 (메모리)
+ *
+ 	· 카테고리 목록은 자주 바뀌지 않고 화면마다 조회되므로 전체 트리를 메모리에 들고 있는다.
+ 	· 스냅샷(Snapshot)과 노드(Node)는 변경 불가능하다. 조회하는 쪽은 락 없이 현재 스냅샷을 그대로 사용한다.
+ 	· 기동 시(ApplicationReadyEvent) 카테고리 테이블로 만들고, 카테고리 등록이 커밋되면(CategoryChangedEvent) 반영한다.
+ 		· 변경된 카테고리와 그 하위 카테고리만 DB 에서 다시 읽는다. (path like 쿼리 1번)
+ 		· 새 스냅샷은 변경된 노드와 부모 노드만 새로 만들고, 나머지 노드는 이전 스냅샷의 노드를 그대로 사용한다.
+
+ 	※ 참고
+ 		· 다른 서버나 SQL 로 직접 변경한 카테고리는 반영되지 않는다. 이 경우 재기동으로 다시 만든다.
+ 		· 삭제 API 는 없다. 다시 읽었는데 없는 카테고리는 스냅샷에서 뺀다.
+ */
+@Slf4j
+@Component
+public class CategoryTree {
+
+	private static final String SELECT = "select category_id, name, parent_id, path from category";
+
+	private final JdbcTemplate jdbcTemplate;
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+	private volatile boolean ready;
+
+	public CategoryTree(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		Gauge.builder("jpashop.category.tree.nodes", this, tree -> tree.snapshot.nodes.size()).register(meterRegistry);
+	}
+
+	/**
+	 * 카테고리 테이블로 스냅샷을 만든다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void load() {
+		long started = System.currentTimeMillis();
+		snapshot = Snapshot.EMPTY.with(Collections.emptyList(), jdbcTemplate.query(SELECT + " order by category_id", this::toNode));
+		ready = true;
+		log.info("카테고리 트리 생성 : {}건 ({} ms)", snapshot.nodes.size(), System.currentTimeMillis() - started);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+		Long categoryId = event.getCategoryId();
+		List<Node> changed = new ArrayList<>(jdbcTemplate.query(SELECT + " where category_id = ?", this::toNode, categoryId));
+		if (!changed.isEmpty()) {
+			changed.addAll(jdbcTemplate.query(SELECT + " where path like ?", this::toNode, changed.get(0).getSubtreePath() + "%"));
+		}
+
+		// 이전 스냅샷의 하위 카테고리 중 다시 읽지 못한 카테고리는 뺀다.
+		List<Long> removed = new ArrayList<>();
+		if (snapshot.nodes.containsKey(categoryId)) {
+			snapshot.collectSubtreeIds(categoryId, removed);
+		}
+		snapshot = snapshot.with(removed, changed);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * 현재 스냅샷 (변경 불가능)
+	 */
+	public Snapshot getSnapshot() {
+		return snapshot;
+	}
+
+	private Node toNode(ResultSet rs, int rowNum) throws SQLException {
+		long parentId = rs.getLong(3);
+		return new Node(rs.getLong(1), rs.getString(2), rs.wasNull() ? null : parentId, rs.getString(4), Collections.emptyList());
+	}
+
+	/**
+	 * 카테고리 하나 (변경 불가능)
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static final class Node {
+		private final Long id;
+		private final String name;
+		private final Long parentId;
+		private final String path;
+		private final List<Long> childIds;
+
+		public String getSubtreePath() {
+			return path + id + "/";
+		}
+
+		private Node withChildIds(List<Long> childIds) {
+			return new Node(id, name, parentId, path, Collections.unmodifiableList(childIds));
+		}
+	}
+
+	/**
+	 * 카테고리 트리 전체 (변경 불가능)
+	 */
+	public static final class Snapshot {
+
+		private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), Collections.emptyList());
+
+		private final Map<Long, Node> nodes;
+		private final List<Long> rootIds;
+
+		private Snapshot(Map<Long, Node> nodes, List<Long> rootIds) {
+			this.nodes = Collections.unmodifiableMap(nodes);
+			this.rootIds = Collections.unmodifiableList(rootIds);
+		}
+
+		/**
+		 * @return 없으면 null
+		 */
+		public Node getNode(Long categoryId) {
+			return nodes.get(categoryId);
+		}
+
+		public List<Node> getRoots() {
+			return getNodes(rootIds);
+		}
+
+		public List<Node> getChildren(Node node) {
+			return getNodes(node.getChildIds());
+		}
+
+		/**
+		 * 카테고리와 하위 카테고리 id 전체 (DB 조회 없음)
+		 */
+		public List<Long> findSubtreeIds(Long categoryId) {
+			List<Long> ids = new ArrayList<>();
+			if (nodes.containsKey(categoryId)) {
+				collectSubtreeIds(categoryId, ids);
+			}
+			return ids;
+		}
+
+		private void collectSubtreeIds(Long categoryId, List<Long> ids) {
+			ids.add(categoryId);
+			for (Long childId : nodes.get(categoryId).getChildIds()) {
+				collectSubtreeIds(childId, ids);
+			}
+		}
+
+		private List<Node> getNodes(List<Long> ids) {
+			List<Node> result = new ArrayList<>(ids.size());
+			for (Long id : ids) {
+				result.add(nodes.get(id));
+			}
+			return result;
+		}
+
+		/**
+		 * removed 를 빼고 changed 를 넣은 새 스냅샷
+		 * - 부모-자식 목록은 부모가 바뀐 노드의 이전 부모, 새 부모만 다시 만든다.
+		 */
+		private Snapshot with(List<Long> removed, List<Node> changed) {
+			Map<Long, Node> next = new HashMap<>(nodes);
+			Map<Long, List<Long>> childIds = new HashMap<>();	// 자식 목록이 바뀐 부모 -> 새 자식 목록
+			List<Long> roots = new ArrayList<>(rootIds);
+
+			for (Long id : removed) {
+				Node old = next.remove(id);
+				detach(old, childIds, roots, next);
+			}
+			for (Node node : changed) {
+				Node old = next.get(node.getId());
+				List<Long> children = childIds.containsKey(node.getId()) ? childIds.get(node.getId())
+						: old != null ? old.getChildIds() : Collections.emptyList();
+				next.put(node.getId(), node.withChildIds(new ArrayList<>(children)));
+				attach(node, childIds, roots, next);
+			}
+
+			// 자식 목록이 바뀐 부모 노드만 새로 만든다. (자식보다 먼저 넣은 부모는 위에서 만든 노드를 다시 바꾼다.)
+			childIds.forEach((parentId, ids) -> {
+				Node parent = next.get(parentId);
+				if (parent != null) {
+					next.put(parentId, parent.withChildIds(ids));
+				}
+			});
+			return new Snapshot(next, roots);
+		}
+
+		private static void detach(Node node, Map<Long, List<Long>> childIds, List<Long> roots, Map<Long, Node> next) {
+			if (node == null) {
+				return;
+			}
+			if (node.getParentId() == null) {
+				roots.remove(node.getId());
+			} else {
+				siblings(node.getParentId(), childIds, next).remove(node.getId());
+			}
+		}
+
+		private static void attach(Node node, Map<Long, List<Long>> childIds, List<Long> roots, Map<Long, Node> next) {
+			List<Long> list = node.getParentId() == null ? roots : siblings(node.getParentId(), childIds, next);
+			if (!list.contains(node.getId())) {
+				list.add(node.getId());
+			}
+		}
+
+		private static List<Long> siblings(Long parentId, Map<Long, List<Long>> childIds, Map<Long, Node> next) {
+			return childIds.computeIfAbsent(parentId, id -> {
+				Node parent = next.get(id);
+				return parent == null ? new ArrayList<>() : new ArrayList<>(parent.getChildIds());
+			});
+		}
+	}
+}
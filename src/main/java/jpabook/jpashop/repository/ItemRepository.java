@@ -1,11 +1,29 @@
 package jpabook.jpashop.repository;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.RequiredArgsConstructor;
 
 @Repository 
@@ -13,6 +31,7 @@ import lombok.RequiredArgsConstructor;
 public class ItemRepository {
 
 	private final EntityManager em;
+	private final JdbcTemplate jdbcTemplate;
 	
 	/**
 	 * 저장
@@ -34,9 +53,162 @@ public class ItemRepository {
 	
 	/**
 	 * 전체 조회
+	 * - 쿼리 캐시 사용 : 상품 테이블이 변경되면 하이버네이트가 캐시된 결과를 무효화 한다.
 	 */
 	public List<Item> findAll(){
-		return em.createQuery("select i from Item i", Item.class).getResultList();
+		return em.createQuery("select i from Item i", Item.class)
+				.setHint(HibernateHints.HINT_CACHEABLE, true)
+				.getResultList();
+	}
+	
+	/**
+	 * 식별자 목록으로 조회 (IN)
+	 */
+	public List<Item> findAllById(Collection<Long> ids){
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+				.setParameter("ids", ids)
+				.getResultList();
+	}
+	
+	/**
+	 * 카테고리 조건으로 상품 조회 (카테고리 상품 비트맵을 사용할 수 없는 경우)
+	 * - matchAll : 모든 카테고리에 속한 상품(AND), 아니면 하나라도 속한 상품(OR)
+	 * - category_item 을 카테고리 수 만큼 읽으므로 CategoryItemIndex 보다 느리다.
+	 */
+	public List<Item> findAllByCategories(Collection<Long> categoryIds, boolean matchAll, int offset, int limit) {
+		if (categoryIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		String subquery = "select ci.id from Category c join c.items ci where c.id in :categoryIds";
+		if (matchAll) {
+			subquery += " group by ci.id having count(distinct c.id) = :categoryCount";
+		}
+		
+		TypedQuery<Item> query = em.createQuery("select i from Item i where i.id in (" + subquery + ") order by i.id", Item.class)
+				.setParameter("categoryIds", categoryIds)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.setFirstResult(offset)
+				.setMaxResults(limit);
+		if (matchAll) {
+			query.setParameter("categoryCount", (long) new HashSet<>(categoryIds).size());
+		}
+		return query.getResultList();
+	}
+	
+	/**
+	 * 가격 조회
+	 * - 주문 시 상품 엔티티를 로딩하지 않고 가격만 조회한다.
+	 * @return 상품이 없으면 null
+	 */
+	public Integer findPrice(Long itemId) {
+		List<Integer> prices = em.createQuery("select i.price from Item i where i.id = :id", Integer.class)
+				.setParameter("id", itemId)
+				.getResultList();
+		return prices.isEmpty() ? null : prices.get(0);
+	}
+	
+	/**
+	 * 가격 조회 (IN)
+	 * @return 상품 식별자 -> 가격 (없는 상품은 포함되지 않음)
+	 */
+	public Map<Long, Integer> findPrices(Collection<Long> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return em.createQuery("select i.id as id, i.price as price from Item i where i.id in :ids", Tuple.class)
+				.setParameter("ids", ids)
+				.getResultStream()
+				.collect(Collectors.toMap(t -> t.get("id", Long.class), t -> t.get("price", Integer.class)));
+	}
+	
+	/**
+	 * 엔티티 조회 없이 프록시 반환 (연관관계 설정용)
+	 */
+	public Item getReference(Long itemId) {
+		return em.getReference(Item.class, itemId);
+	}
+	
+	/**
+	 * 재고 차감
+	 * 
+	 	· 조건부 update 한번으로 확인과 차감을 같이 한다. (stock_quantity >= 수량 인 경우에만 차감)
+	 		· 엔티티를 조회해서 자바에서 확인 후 변경감지로 update 하면, 동시에 주문한 요청들이 같은 재고를 읽고 모두 성공한다. (초과 판매)
+	 		· select ... for update 로 막으면 인기 상품 주문이 모두 한줄로 대기한다.
+	 		· update 는 DB 가 행 단위로 원자적으로 처리하므로 락은 update 순간에만 잡힌다.
+	 	· 변경된 행이 없으면 재고 부족(또는 상품 없음) 이므로 NotEnoughStockException
+	 	
+	 	※ 참고
+	 		· JPQL 벌크 연산은 하이버네이트가 Item 2차 캐시 region 과 쿼리 캐시 전체를 비운다. 주문마다 실행되므로 캐시가 의미 없어진다.
+	 		· 그래서 같은 트랜잭션(커넥션)의 JdbcTemplate 으로 실행하고, 2차 캐시에서는 해당 상품만 잠근다. (lockStock)
+	 			· 변경감지 update 와 같이 READ_WRITE 캐시의 soft lock 을 잡고 트랜잭션이 끝나면 푼다.
+	 			· 잠겨 있는 동안, 그리고 잠금을 풀기 전에 시작한 세션이 읽은 값은 캐시에 넣지 않는다. (putFromLoad 거절)
+	 			  단순히 evict 하면 커밋 전에 이전 값을 읽은 요청이 커밋 후에 다시 캐시에 넣어서 TTL 까지 이전 재고가 남는다.
+	 			· 쿼리 캐시(findAll)는 상품 id 목록만 들고 있으므로 재고가 바뀌어도 비울 필요가 없다.
+	 		· update 는 영속성 컨텍스트를 거치지 않으므로 이미 영속 상태인 상품은 다시 읽어온다. (refreshIfManaged)
+	 */
+	public void removeStock(Long itemId, int quantity) {
+		em.flush();		// 아직 insert 되지 않은 상품 등 (JPQL 벌크 연산도 실행 전에 flush 한다.)
+		int updated = lockStock(itemId, () -> jdbcTemplate.update("update item set stock_quantity = stock_quantity - ?"
+						+ " where item_id = ? and stock_quantity >= ?", quantity, itemId, quantity));
+		
+		if (updated == 0) {
+			throw new NotEnoughStockException("need more stock");
+		}
+		refreshIfManaged(itemId);
+	}
+	
+	/**
+	 * 재고 증가 (주문 취소 시 원복)
+	 */
+	public void addStock(Long itemId, int quantity) {
+		em.flush();
+		lockStock(itemId, () -> jdbcTemplate.update("update item set stock_quantity = stock_quantity + ? where item_id = ?", quantity, itemId));
+		refreshIfManaged(itemId);
+	}
+	
+	/**
+	 * 상품의 2차 캐시 항목을 잠그고 update 실행, 트랜잭션이 끝나면(커밋/롤백) 잠금을 푼다.
+	 * - 하이버네이트가 엔티티를 update 할 때와 같은 방식 (EntityDataAccess.lockItem / unlockItem)
+	 */
+	private int lockStock(Long itemId, IntSupplier update) {
+		SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+		EntityPersister persister = session.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(Item.class);
+		EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+		if (cacheAccess == null) {
+			return update.getAsInt();
+		}
+		
+		Object key = cacheAccess.generateCacheKey(itemId, persister, session.getFactory(), session.getTenantIdentifier());
+		SoftLock lock = cacheAccess.lockItem(session, key, null);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			try {
+				return update.getAsInt();
+			} finally {
+				cacheAccess.unlockItem(session, key, lock);
+			}
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				cacheAccess.unlockItem(session, key, lock);
+			}
+		});
+		return update.getAsInt();
+	}
+	
+	/**
+	 * 영속성 컨텍스트에 이미 초기화된 상품이 있으면 DB 값으로 다시 읽는다.
+	 * - getReference 는 영속 상태인 상품을 그대로 주고, 없으면 조회하지 않고 프록시를 준다.
+	 */
+	private void refreshIfManaged(Long itemId) {
+		Item item = em.getReference(Item.class, itemId);
+		if (Hibernate.isInitialized(item)) {
+			em.refresh(item);
+		}
 	}
 	
 }
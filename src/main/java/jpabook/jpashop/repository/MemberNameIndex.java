@@ -0,0 +1,248 @@
+package jpabook.jpashop.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.MemberChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 회원 이름 부분 검색용 트라이그램(3-gram) 인덱스
+ * 
+ 	· m.name like '%검색어%' 는 B-tree 인덱스를 사용할 수 없어서 회원 전체를 읽는다.
+ 	· 이름을 3글자씩 잘라서(트라이그램) 트라이그램 -> 회원 id 목록(정렬된 long[])을 메모리에 들고 있는다.
+ 		· 예) "userA" -> "use", "ser", "erA"
+ 	· 검색어의 트라이그램 목록을 모두 가진 회원 id 를 교집합으로 구한다. (작은 목록부터)
+ 		· 교집합은 후보일 뿐이다. ("abcXbcd" 는 "abcd" 의 트라이그램을 모두 가지지만 포함하지 않는다.)
+ 		· 그래서 주문 조회는 member_id in (후보) and name like '%검색어%' 로 조회한다. 후보 몇 건만 PK 로 확인한다.
+ 	· 인덱스로 답할 수 없으면 null 을 반환하고, 호출하는 쪽은 기존 like 검색을 사용한다.
+ 		· 검색어가 3글자 미만, like 특수문자(%, _) 포함, 후보가 max-candidates 초과, 기동 전(인덱스 생성 전)
+ 	· 기동 시(ApplicationReadyEvent) 회원 테이블로 만들고, 회원 가입/수정/일괄 등록이 커밋되면(MemberChangedEvent) 현재 이름을 다시 읽어서 반영한다.
+ 	
+ 	※ 참고
+ 		· 대소문자를 구분한다. (H2 like 와 같다.)
+ 		· 다른 서버나 SQL 로 직접 변경한 이름은 반영되지 않는다. 이 경우 검색에서 누락될 수 있으므로 재기동으로 다시 만든다.
+ 		· 메모리 : 트라이그램 1개당 id 8 byte. "member-123456" 같은 이름 100만건이면 약 11개 x 100만 x 8 byte = 약 90 MB
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+	private static final int GRAM = 3;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final boolean enabled;
+	private final int maxCandidates;
+	private final ConcurrentHashMap<Long, Postings> postings = new ConcurrentHashMap<>();
+	private final AtomicLong entries = new AtomicLong();
+	private volatile boolean ready;
+
+	public MemberNameIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+			@Value("${jpashop.member.name-index.enabled:true}") boolean enabled,
+			@Value("${jpashop.member.name-index.max-candidates:1000}") int maxCandidates) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.enabled = enabled;
+		this.maxCandidates = maxCandidates;
+		
+		Gauge.builder("jpashop.member.name_index.trigrams", postings, ConcurrentHashMap::size).register(meterRegistry);
+		Gauge.builder("jpashop.member.name_index.entries", entries, AtomicLong::get).register(meterRegistry);
+	}
+
+	/**
+	 * 회원 테이블로 인덱스를 만든다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		if (!enabled) {
+			return;
+		}
+		
+		long started = System.currentTimeMillis();
+		jdbcTemplate.query("select member_id, name from member", rs -> {
+			add(rs.getLong(1), rs.getString(2));
+		});
+		ready = true;
+		log.info("회원 이름 인덱스 생성 : 트라이그램 {}개, id {}건 ({} ms)", postings.size(), entries.get(), System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * 회원 이름 변경 반영
+	 * - 이벤트의 이름 대신 커밋된 회원의 현재 이름을 다시 읽어서 반영한다.
+	 * - 같은 회원을 연달아 수정하면 이벤트 처리 순서가 커밋 순서와 다를 수 있다. (A->B, B->C 가 거꾸로 처리되면 B 가 남는다)
+	 *   이벤트의 이전/새 이름 중 현재 이름에 없는 트라이그램만 지우고 현재 이름을 추가하므로, 모든 이벤트가 처리되면 현재 이름만 남는다.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public synchronized void onMemberChanged(MemberChangedEvent event) {
+		if (!enabled || (event.getOldName() != null && event.getOldName().equals(event.getNewName()))) {
+			return;
+		}
+		
+		List<String> names = jdbcTemplate.queryForList("select name from member where member_id = ?", String.class, event.getMemberId());
+		String currentName = names.isEmpty() ? null : names.get(0);
+		Set<Long> current = currentName == null ? Collections.emptySet() : grams(currentName);
+		
+		remove(event.getMemberId(), event.getOldName(), current);
+		remove(event.getMemberId(), event.getNewName(), current);
+		add(event.getMemberId(), currentName);
+	}
+
+	/**
+	 * 이름에 검색어가 포함될 수 있는 회원 id (후보)
+	 * 
+	 * @return 오름차순 회원 id, 인덱스로 답할 수 없으면 null (like 검색 사용)
+	 */
+	public List<Long> findCandidateIds(String fragment) {
+		if (!ready || fragment == null || fragment.length() < GRAM
+				|| fragment.indexOf('%') >= 0 || fragment.indexOf('_') >= 0) {
+			return null;
+		}
+		
+		List<Postings> lists = new ArrayList<>();
+		List<Integer> sizes = new ArrayList<>();
+		for (long gram : grams(fragment)) {
+			Postings list = postings.get(gram);
+			if (list == null) {
+				return Collections.emptyList();
+			}
+			lists.add(list);
+			sizes.add(list.size());
+		}
+		
+		// 목록은 다른 스레드가 바꿀 수 있으므로 크기를 먼저 읽어두고 그 값으로 정렬한다. (정렬 중에 비교 결과가 바뀌면 TimSort 가 예외를 던진다)
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < lists.size(); i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparingInt(sizes::get));
+		
+		// 가장 작은 목록을 복사해서 나머지 목록에 모두 있는 id 만 남긴다.
+		long[] candidates = lists.get(order.get(0)).snapshot();
+		int size = candidates.length;
+		for (int i = 1; i < order.size() && size > 0; i++) {
+			size = lists.get(order.get(i)).retainAll(candidates, size);
+		}
+		
+		if (size > maxCandidates) {
+			return null;
+		}
+		
+		List<Long> ids = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ids.add(candidates[i]);
+		}
+		return ids;
+	}
+
+	private void add(long memberId, String name) {
+		if (name == null) {
+			return;
+		}
+		for (long gram : grams(name)) {
+			if (postings.computeIfAbsent(gram, g -> new Postings()).add(memberId)) {
+				entries.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * name 의 트라이그램 중 keep 에 없는 것만 지운다.
+	 */
+	private void remove(long memberId, String name, Set<Long> keep) {
+		if (name == null) {
+			return;
+		}
+		for (long gram : grams(name)) {
+			if (keep.contains(gram)) {
+				continue;
+			}
+			Postings list = postings.get(gram);
+			if (list != null && list.remove(memberId)) {
+				entries.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 트라이그램 목록 (중복 제거), 한 글자 16bit 씩 3글자를 long 하나로 만든다.
+	 */
+	private static Set<Long> grams(String text) {
+		Set<Long> grams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+		}
+		return grams;
+	}
+
+	/**
+	 * 트라이그램 하나의 회원 id 목록 (오름차순)
+	 * - 새 회원은 id 가 계속 커지므로 대부분 끝에 추가된다.
+	 */
+	private static class Postings {
+		private long[] ids = new long[4];
+		private int size;
+
+		synchronized boolean add(long id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				return false;
+			}
+			int insertAt = -index - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+			}
+			System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+			ids[insertAt] = id;
+			size++;
+			return true;
+		}
+
+		synchronized boolean remove(long id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+			return true;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized long[] snapshot() {
+			return Arrays.copyOf(ids, size);
+		}
+
+		/**
+		 * candidates[0..count) 중 이 목록에 있는 id 만 앞으로 모은다.
+		 * @return 남은 개수
+		 */
+		synchronized int retainAll(long[] candidates, int count) {
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				if (Arrays.binarySearch(ids, 0, size, candidates[i]) >= 0) {
+					candidates[kept++] = candidates[i];
+				}
+			}
+			return kept;
+		}
+	}
+}
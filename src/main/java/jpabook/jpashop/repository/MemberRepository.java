@@ -1,7 +1,13 @@
 package jpabook.jpashop.repository;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.EntityManager;
@@ -57,12 +63,77 @@ public class MemberRepository {
 		em.persist(member);
 	}
 	
+	/**
+	 * 저장 후 바로 insert 실행
+	 * - 유니크 제약조건 위반을 커밋 시점이 아니라 여기서 확인하기 위해 flush 한다.
+	 * - @Repository 예외 변환으로 제약조건 위반은 DataIntegrityViolationException 이 된다.
+	 */
+	public void saveAndFlush(Member member) {
+		em.persist(member);
+		em.flush();
+	}
+	
+	/**
+	 * 변경감지 update 바로 실행
+	 * - 이름 변경의 유니크 제약조건 위반을 커밋 시점이 아니라 여기서 확인하기 위해 flush 한다. (DataIntegrityViolationException)
+	 */
+	public void flush() {
+		em.flush();
+	}
+	
 	public Member findOne(Long id) {
 		return em.find(Member.class, id);
 	}
 	
+	/**
+	 * 전체 조회
+	 * - 쿼리 캐시 사용 : 회원 테이블이 변경되면 하이버네이트가 캐시된 결과를 무효화 한다.
+	 */
 	public List<Member> findAll(){
-		return em.createQuery("select m from Member m",Member.class).getResultList();
+		return em.createQuery("select m from Member m",Member.class)
+				.setHint(HibernateHints.HINT_CACHEABLE, true)
+				.getResultList();
+	}
+	
+	/**
+	 * 식별자 목록으로 조회 (IN)
+	 */
+	public List<Member> findAllById(Collection<Long> ids){
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+				.setParameter("ids", ids)
+				.getResultList();
+	}
+	
+	/**
+	 * 전체 조회 - StatelessSession
+	 * 
+	 	· 영속성 컨텍스트(1차 캐시), 스냅샷, 2차 캐시를 사용하지 않는다. 조회한 엔티티는 처음부터 준영속 상태이다.
+	 	· 현재 트랜잭션(OSIV)의 커넥션을 그대로 사용한다. (커넥션 풀에서 추가로 가져오지 않는다.)
+	 	· 지연 로딩이 안되므로(orders) DTO 로 변환하는 용도로만 사용한다.
+	 */
+	public List<Member> findAllStateless(){
+		SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+		return em.unwrap(Session.class).doReturningWork(connection -> {
+			try (StatelessSession session = sessionFactory.openStatelessSession(connection)) {
+				return session.createQuery("select m from Member m", Member.class)
+						.getResultList();
+			}
+		});
+	}
+	
+	/**
+	 * 이름 존재 여부
+	 * - 엔티티 목록을 만들지 않고 id 하나만 조회한다.
+	 */
+	public boolean existsByName(String name){
+		return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+				.setParameter("name", name)
+				.setMaxResults(1)
+				.getResultList()
+				.isEmpty();
 	}
 	
 	public List<Member> findByName(String name){
@@ -1,12 +1,18 @@
 package jpabook.jpashop.repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -17,15 +23,24 @@ import jakarta.persistence.criteria.Root;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * 조회 전용 힌트 (HibernateHints.HINT_READ_ONLY)
+ * - 목록 API 용 메소드(...ReadOnly)는 읽기 전용으로 조회한다. 영속성 컨텍스트에 스냅샷(변경감지용 원본 복사본)을 만들지 않고, flush 시 변경감지 대상에서도 빠진다.
+ * - OSIV 로 요청이 끝날 때까지 영속성 컨텍스트가 유지되고, API 컨트롤러는 트랜잭션 없이 리포지토리를 바로 호출하므로(readOnly 트랜잭션 X) 쿼리에 직접 지정한다.
+ * - 읽기 전용으로 조회한 엔티티는 같은 요청에서 findOne 으로 다시 조회해도 같은 인스턴스(읽기 전용)가 반환되어 값을 바꿔도 update 되지 않는다.
+ *   그래서 힌트는 조회만 하는 목록 API 용 메소드에만 지정하고, 나머지 조회 메소드는 그대로(변경감지 대상) 둔다.
+ */
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
 	
 	private final EntityManager em;
+	private final MemberNameIndex memberNameIndex;
 
 	/**
 	 * 주문 저장  
@@ -46,6 +61,17 @@ public class OrderRepository {
 	 * - 검색조건 : 회원명, 주문상태
 	 */
 	public List<Order> findAllByString(OrderSearch orderSearch) {
+		return byStringQuery(orderSearch).getResultList();
+	}
+	
+	/**
+	 * 주문 전체 조회 - JPQL (목록 API 용, 읽기 전용)
+	 */
+	public List<Order> findAllByStringReadOnly(OrderSearch orderSearch) {
+		return readOnly(byStringQuery(orderSearch)).getResultList();
+	}
+	
+	private TypedQuery<Order> byStringQuery(OrderSearch orderSearch) {
 
 		String jpql = "select o From Order o join o.member m";
 		 boolean isFirstCondition = true;
@@ -82,14 +108,25 @@ public class OrderRepository {
 			 query = query.setParameter("name", orderSearch.getMemberName());
 		 }
 		 
-		 return query.getResultList();
+		 return query;
 	}
 	
 	/**
 	 * 주문 전체 조회 - Criteria
-	 * - 검색조건 : 회원명, 주문상태
+	 * - 검색조건 : 회원명(부분 일치), 주문상태
+	 * - 회원명은 트라이그램 인덱스(MemberNameIndex)로 후보 회원 id 를 먼저 구해서 member_id in (...) 으로 조회한다.
+	 *   like '%회원명%' 는 회원 전체를 읽어야 하지만, 후보 id 는 PK 로 바로 찾는다. like 조건은 후보 확인용으로 남겨둔다.
+	 * - 인덱스로 답할 수 없으면(3글자 미만 등) 기존처럼 like 로만 조회한다.
 	 */
 	public List<Order> findAllByCriteria(OrderSearch orderSearch) {
+		List<Long> candidateIds = null;
+		if (StringUtils.hasText(orderSearch.getMemberName())) {
+			candidateIds = memberNameIndex.findCandidateIds(orderSearch.getMemberName());
+			if (candidateIds != null && candidateIds.isEmpty()) {
+				return Collections.emptyList();
+			}
+		}
+		
 		CriteriaBuilder cb = em.getCriteriaBuilder();
 		CriteriaQuery<Order> cq = cb.createQuery(Order.class);
 		Root<Order> o = cq.from(Order.class);
@@ -106,23 +143,75 @@ public class OrderRepository {
 		if (StringUtils.hasText(orderSearch.getMemberName())) {
 			Predicate name = cb.like(m.<String>get("name"), "%" + orderSearch.getMemberName() + "%");
 			criteria.add(name);
+			
+			if (candidateIds != null) {
+				criteria.add(o.get("member").get("id").in(candidateIds));
+			}
 		}
 		 
 		cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-		TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대
+		TypedQuery<Order> query = em.createQuery(cq)
+				.setMaxResults(1000); //최대
 		
 		return query.getResultList();
 	}
 
 	public List<Order> findAllWithMemberDelivery() {
+		return withMemberDeliveryQuery().getResultList();
+	}
+
+	public List<Order> findAllWithMemberDeliveryReadOnly() {
+		return readOnly(withMemberDeliveryQuery()).getResultList();
+	}
+
+	public List<Order> findAllWithItem() {
+		return withItemQuery().getResultList();
+	}
+
+	public List<Order> findAllWithItemReadOnly() {
+		return readOnly(withItemQuery()).getResultList();
+	}
+	
+	public List<Order> findAllWithMemberDelivery(int offset, int limit) {
+		return withMemberDeliveryQuery()
+				.setFirstResult(offset)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+	public List<Order> findAllWithMemberDeliveryReadOnly(int offset, int limit) {
+		return readOnly(withMemberDeliveryQuery())
+				.setFirstResult(offset)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+	
+	/**
+	 * 주문 조회 - 키셋(커서) 페이징
+	 * - offset 페이징은 앞 페이지의 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+	 * - 마지막으로 조회한 order_id 다음부터 PK 인덱스로 바로 찾아가므로 몇 번째 페이지든 비용이 같다.
+	 * - ToOne 관계만 페치 조인하고, 컬렉션(orderItems)은 기존처럼 default_batch_fetch_size 로 조회한다.
+	 * 
+	 * @param lastOrderId 이전 페이지의 마지막 주문 id (첫 페이지는 null)
+	 */
+	public List<Order> findAllWithMemberDeliveryAfter(Long lastOrderId, int limit) {
+		return afterQuery(lastOrderId, limit).getResultList();
+	}
+	
+	public List<Order> findAllWithMemberDeliveryAfterReadOnly(Long lastOrderId, int limit) {
+		return readOnly(afterQuery(lastOrderId, limit)).getResultList();
+	}
+	
+	// offset 페이징은 순서가 정해져야 페이지가 겹치거나 빠지지 않는다. (PK 순, 정렬 없이 PK 인덱스로 읽는다)
+	private TypedQuery<Order> withMemberDeliveryQuery() {
 		return em.createQuery(
 				"select o from Order o "
 				+ " join fetch o.member m"
-				+ " join fetch o.delivery d", Order.class
-		).getResultList();
+				+ " join fetch o.delivery d"
+				+ " order by o.id", Order.class);
 	}
-
-	public List<Order> findAllWithItem() {
+	
+	private TypedQuery<Order> withItemQuery() {
 		return em.createQuery(
 				"select o from Order o"
 				+ " join fetch o.member m"
@@ -130,17 +219,110 @@ public class OrderRepository {
 				+ " join fetch o.orderItems oi"
 				+ " join fetch oi.item i", Order.class)
 				.setFirstResult(1)
-				.setMaxResults(100)
-				.getResultList();
+				.setMaxResults(100);
 	}
 	
-	public List<Order> findAllWithMemberDelivery(int offset, int limit) {
-		return em.createQuery(
-				"select o from Order o "
-						+ " join fetch o.member m"
-						+ " join fetch o.delivery d", Order.class)
-				.setFirstResult(offset)
-				.setMaxResults(limit)
+	private TypedQuery<Order> afterQuery(Long lastOrderId, int limit) {
+		String jpql = "select o from Order o"
+				+ " join fetch o.member m"
+				+ " join fetch o.delivery d";
+		
+		if (lastOrderId != null) {
+			jpql += " where o.id > :lastOrderId";
+		}
+		jpql += " order by o.id";
+		
+		TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+				.setMaxResults(limit);
+		
+		if (lastOrderId != null) {
+			query.setParameter("lastOrderId", lastOrderId);
+		}
+		return query;
+	}
+	
+	private static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+		return query.setHint(HibernateHints.HINT_READ_ONLY, true);
+	}
+	
+	/**
+	 * 취소 대상 주문 id 조회 (대량 취소)
+	 * - 검색조건 : 회원명, 주문상태 (findAllByString 과 같은 조건)
+	 * - 이미 취소된 주문은 대상이 아니므로 주문상태가 CANCEL 이면 빈 목록
+	 * - 키셋 페이징 : afterId 보다 큰 id 를 id 순으로 limit 건 (idx_orders_status)
+	 * @param afterId 이전 페이지의 마지막 id (첫 페이지는 null)
+	 */
+	public List<Long> findCancelableIds(OrderSearch orderSearch, Long afterId, int limit) {
+		if (orderSearch.getOrderStatus() == OrderStatus.CANCEL) {
+			return Collections.emptyList();
+		}
+		
+		String jpql = "select o.id from Order o join o.member m where o.status = :status";
+		if (StringUtils.hasText(orderSearch.getMemberName())) {
+			jpql += " and m.name like :name";
+		}
+		if (afterId != null) {
+			jpql += " and o.id > :afterId";
+		}
+		
+		TypedQuery<Long> query = em.createQuery(jpql + " order by o.id", Long.class)
+				.setParameter("status", OrderStatus.ORDER)
+				.setMaxResults(limit);
+		if (StringUtils.hasText(orderSearch.getMemberName())) {
+			query.setParameter("name", orderSearch.getMemberName());
+		}
+		if (afterId != null) {
+			query.setParameter("afterId", afterId);
+		}
+		return query.getResultList();
+	}
+	
+	/**
+	 * 취소 가능한 주문만 골라서 행 잠금 (select ... for update)
+	 * - 주문상태 ORDER 이고 배송 완료(COMP)가 아닌 주문
+	 * - 잠근 뒤 상태를 변경하므로 동시에 배송 완료 처리되거나 중복 취소되지 않는다.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Long> lockCancelableIds(Collection<Long> orderIds) {
+		if (orderIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Number> ids = em.createNativeQuery(
+				"select o.order_id from orders o"
+				+ " where o.order_id in (:ids) and o.status = 'ORDER'"
+				+ " and not exists (select 1 from delivery d where d.delivery_id = o.delivery_id and d.status = 'COMP')"
+				+ " for update")
+				.setParameter("ids", orderIds)
 				.getResultList();
+		return ids.stream().map(Number::longValue).collect(Collectors.toList());
+	}
+	
+	/**
+	 * 주문 상태를 취소로 변경 (벌크 update)
+	 */
+	public int markCanceled(Collection<Long> orderIds) {
+		if (orderIds.isEmpty()) {
+			return 0;
+		}
+		return em.createQuery("update Order o set o.status = :cancel where o.id in :ids and o.status = :order")
+				.setParameter("cancel", OrderStatus.CANCEL)
+				.setParameter("order", OrderStatus.ORDER)
+				.setParameter("ids", orderIds)
+				.executeUpdate();
+	}
+	
+	/**
+	 * 주문들의 상품별 주문 수량 합계
+	 * @return 상품 id -> 수량 합계
+	 */
+	public Map<Long, Integer> sumOrderCountByItem(Collection<Long> orderIds) {
+		if (orderIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return em.createQuery("select oi.item.id as itemId, sum(oi.count) as total from OrderItem oi"
+						+ " where oi.order.id in :ids group by oi.item.id", Tuple.class)
+				.setParameter("ids", orderIds)
+				.getResultStream()
+				.collect(Collectors.toMap(t -> t.get("itemId", Long.class), t -> t.get("total", Number.class).intValue()));
 	}
 }
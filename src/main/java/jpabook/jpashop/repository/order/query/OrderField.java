@@ -0,0 +1,85 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 주문 조회 API 의 fields 파라미터로 고를 수 있는 필드 (OrderDTO 와 같은 이름)
+ * - orderItems 는 하위 필드 3개를 모두 고른 것과 같다.
+ * - 예) fields=id,status / fields=id,name,orderItems.itemName
+ */
+public enum OrderField {
+
+	ID("id"),
+	NAME("name"),
+	ORDER_DATE("orderDate"),
+	STATUS("status"),
+	ADDRESS("address"),
+	ITEM_NAME("orderItems.itemName"),
+	ORDER_PRICE("orderItems.orderPrice"),
+	COUNT("orderItems.count");
+
+	private static final Set<OrderField> ORDER_ITEMS = Collections.unmodifiableSet(EnumSet.of(ITEM_NAME, ORDER_PRICE, COUNT));
+
+	private final String path;
+
+	OrderField(String path) {
+		this.path = path;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * 응답 JSON 에서의 이름 (orderItems.itemName -> itemName)
+	 */
+	public String getJsonName() {
+		return path.substring(path.lastIndexOf('.') + 1);
+	}
+
+	public boolean isOrderItem() {
+		return ORDER_ITEMS.contains(this);
+	}
+
+	/**
+	 * fields 파라미터 파싱
+	 * - 콤마로 구분하고 앞뒤 공백은 무시한다. 순서, 중복은 상관없다.
+	 * @return 파라미터가 없으면 null (전체 필드)
+	 */
+	public static Set<OrderField> parse(String fields) {
+		if (!StringUtils.hasText(fields)) {
+			return null;
+		}
+
+		Set<OrderField> result = EnumSet.noneOf(OrderField.class);
+		for (String name : fields.split(",")) {
+			String path = name.trim();
+			if (path.isEmpty()) {
+				continue;
+			}
+			if ("orderItems".equals(path)) {
+				result.addAll(ORDER_ITEMS);
+				continue;
+			}
+			result.add(of(path));
+		}
+
+		if (result.isEmpty()) {
+			throw new IllegalArgumentException("fields 에 필드가 없습니다. fields=" + fields);
+		}
+		return result;
+	}
+
+	private static OrderField of(String path) {
+		for (OrderField field : values()) {
+			if (field.path.equals(path)) {
+				return field;
+			}
+		}
+		throw new IllegalArgumentException("알 수 없는 필드입니다. field=" + path);
+	}
+}
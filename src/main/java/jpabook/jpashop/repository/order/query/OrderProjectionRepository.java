@@ -0,0 +1,144 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 조회 - 필요한 필드만 조회 (fields 파라미터)
+ * - 엔티티를 조회하지 않고 고른 필드의 컬럼만 튜플로 조회한다. 고르지 않은 필드의 조인(member, delivery, item)은 하지 않는다.
+ * - orderItems 하위 필드를 고르면 V5 와 같이 IN 절로 한번 더 조회한다. (루트 조회는 컬렉션 조인이 없으므로 SQL 에서 페이징된다)
+ * - 결과는 고른 필드만 담은 Map 이므로 직렬화도 고른 필드만 한다.
+ *
+ * ※ 참고
+ * 	· 필드 조합 별로 만든 JPQL 을 projections 에 보관해서 다시 만들지 않는다.
+ * 	· 하이버네이트도 JPQL 문자열 단위로 해석 결과(query plan)를 캐시하므로 같은 조합은 같은 문자열을 넘겨야 재사용된다.
+ * 	· 필드 조합 수는 2^8 개를 넘을 수 없으므로 크기 제한은 두지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderProjectionRepository {
+
+	private final EntityManager em;
+
+	/**
+	 * IN 절 한번에 넣을 최대 orderId 수
+	 */
+	private int inChunkSize;
+
+	private final Map<Set<OrderField>, Projection> projections = new ConcurrentHashMap<>();
+
+	/**
+	 * 0 이하면 청크로 나눌 수 없으므로 기동 시 실패시킨다.
+	 */
+	@Value("${jpashop.query.in-chunk-size:1000}")
+	void setInChunkSize(int inChunkSize) {
+		if (inChunkSize <= 0) {
+			throw new IllegalArgumentException("jpashop.query.in-chunk-size 는 1 이상이어야 합니다. in-chunk-size=" + inChunkSize);
+		}
+		this.inChunkSize = inChunkSize;
+	}
+
+	/**
+	 * @param fields 응답에 담을 필드 (OrderField.parse)
+	 * @param offset 루트(주문) 시작 위치
+	 * @param limit 루트(주문) 최대 건수
+	 */
+	public List<Map<String, Object>> findOrders(Set<OrderField> fields, int offset, int limit) {
+		Projection projection = projections.computeIfAbsent(EnumSet.copyOf(fields), Projection::new);
+
+		// 1. 루트 조회 (첫번째 컬럼은 항상 o.id)
+		List<Tuple> rows = em.createQuery(projection.rootJpql, Tuple.class)
+				.setFirstResult(offset)
+				.setMaxResults(limit)
+				.getResultList();
+
+		List<Map<String, Object>> result = new ArrayList<>(rows.size());
+		Map<Long, List<Map<String, Object>>> orderItemsById = new HashMap<>();
+		for (Tuple row : rows) {
+			Map<String, Object> order = toMap(row, projection.rootFields);
+			if (projection.itemJpql != null) {
+				List<Map<String, Object>> orderItems = new ArrayList<>();
+				order.put("orderItems", orderItems);
+				orderItemsById.put(row.get(0, Long.class), orderItems);
+			}
+			result.add(order);
+		}
+
+		// 2. orderItems IN 조회 후 셋팅
+		if (projection.itemJpql != null && !orderItemsById.isEmpty()) {
+			List<Long> orderIds = new ArrayList<>(orderItemsById.keySet());
+			for (int from = 0; from < orderIds.size(); from += inChunkSize) {
+				em.createQuery(projection.itemJpql, Tuple.class)
+						.setParameter("orderIds", orderIds.subList(from, Math.min(from + inChunkSize, orderIds.size())))
+						.getResultList()
+						.forEach(row -> orderItemsById.get(row.get(0, Long.class)).add(toMap(row, projection.itemFields)));
+			}
+		}
+		return result;
+	}
+
+	// 튜플의 1번째 컬럼부터 필드 순서대로 담는다. (0번째는 o.id)
+	private static Map<String, Object> toMap(Tuple row, List<OrderField> fields) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			map.put(fields.get(i).getJsonName(), row.get(i + 1));
+		}
+		return map;
+	}
+
+	/**
+	 * 필드 조합 하나의 JPQL
+	 */
+	private static final class Projection {
+
+		private final String rootJpql;
+		private final List<OrderField> rootFields = new ArrayList<>();
+		private final String itemJpql;
+		private final List<OrderField> itemFields = new ArrayList<>();
+
+		Projection(Set<OrderField> fields) {
+			StringBuilder select = new StringBuilder("select o.id");
+			StringBuilder itemSelect = new StringBuilder("select oi.order.id");
+			for (OrderField field : fields) {
+				switch (field) {
+				case ID -> select.append(", o.id");
+				case NAME -> select.append(", m.name");
+				case ORDER_DATE -> select.append(", o.orderDate");
+				case STATUS -> select.append(", o.status");
+				case ADDRESS -> select.append(", d.address");
+				case ITEM_NAME -> itemSelect.append(", i.name");
+				case ORDER_PRICE -> itemSelect.append(", oi.orderPrice");
+				case COUNT -> itemSelect.append(", oi.count");
+				}
+				(field.isOrderItem() ? itemFields : rootFields).add(field);
+			}
+
+			this.rootJpql = select
+					.append(" from Order o")
+					.append(fields.contains(OrderField.NAME) ? " join o.member m" : "")
+					.append(fields.contains(OrderField.ADDRESS) ? " join o.delivery d" : "")
+					.append(" order by o.id")
+					.toString();
+
+			this.itemJpql = itemFields.isEmpty() ? null : itemSelect
+					.append(" from OrderItem oi")
+					.append(fields.contains(OrderField.ITEM_NAME) ? " join oi.item i" : "")
+					.append(" where oi.order.id in :orderIds")
+					.append(" order by oi.id")
+					.toString();
+		}
+	}
+}
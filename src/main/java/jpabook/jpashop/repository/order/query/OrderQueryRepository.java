@@ -1,12 +1,28 @@
 package jpabook.jpashop.repository.order.query;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 
 @Repository
@@ -14,6 +30,32 @@ import lombok.RequiredArgsConstructor;
 public class OrderQueryRepository {
 
 	private final EntityManager em;
+	private final EntityManagerFactory emf;
+	private final Executor orderQueryExecutor;
+	private final Semaphore orderQueryFanOutPermits;
+	private final MeterRegistry meterRegistry;
+	
+	/**
+	 * IN 절 한번에 넣을 최대 orderId 수
+	 */
+	private int inChunkSize;
+	
+	/**
+	 * 스트리밍 조회 시 JDBC fetch size (한번에 DB에서 가져오는 row 수)
+	 */
+	@Value("${jpashop.export.fetch-size:1000}")
+	private int exportFetchSize;
+
+	/**
+	 * 0 이하면 청크로 나눌 수 없으므로 기동 시 실패시킨다.
+	 */
+	@Value("${jpashop.query.in-chunk-size:1000}")
+	void setInChunkSize(int inChunkSize) {
+		if (inChunkSize <= 0) {
+			throw new IllegalArgumentException("jpashop.query.in-chunk-size 는 1 이상이어야 합니다. in-chunk-size=" + inChunkSize);
+		}
+		this.inChunkSize = inChunkSize;
+	}
 
 	/**
 	 * 
@@ -45,13 +87,92 @@ public class OrderQueryRepository {
 		List<OrderQueryDTO> result =  findOrders();
 		
 		// 2. orderid를 리스트로 추출 + 3. OrderItemQueryDTO in 조회 및 OrderItemQueryDTO -> Map 변환
-		Map<Long, List<OrderItemQueryDto>> map = findOrderItemMap(toOrderIds(result));
+		Map<Long, List<OrderItemQueryDto>> map = findOrderItemMap(toOrderIds(result), true);
 		
 		// 4. OrderQueryDTO에 OrderItemQueryDTO 셋팅
 		result.forEach(o -> o.setOrderItems(map.get(o.getOrderId())));
 		return result;
 	}
 	
+	/**
+	 * N+1 문제 해결 - IN 절 청크를 현재 EntityManager 로 순서대로 조회
+	 * - 결과는 findAllByDTO_optimization() 과 같지만 청크 조회를 orderQueryExecutor 로 넘기지 않는다. (커넥션 1개만 사용)
+	 * - 이미 커넥션을 잡은 스레드가 다른 커넥션이 필요한 작업을 기다리면, 그런 스레드가 커넥션 풀 크기만큼 모였을 때 모두 멈춘다.
+	 *   커넥션 풀 크기만큼 스레드를 두는 전용 스레드 풀(orderJdbcExecutor)에서는 이 메소드를 사용한다. (OrderAsyncApiController)
+	 */
+	public List<OrderQueryDTO> findAllByDTO_sequential() {
+		List<OrderQueryDTO> result = findOrders();
+		Map<Long, List<OrderItemQueryDto>> map = findOrderItemMap(toOrderIds(result), false);
+		result.forEach(o -> o.setOrderItems(map.get(o.getOrderId())));
+		return result;
+	}
+	
+	/**
+	 * N+1 문제 해결 + 페이지 단위 파이프라인 조회
+	 * - findAllByDTO_optimization() 은 루트 조회가 끝나야 컬렉션 조회를 시작하고, 모두 요청 스레드에서 순서대로 실행된다.
+	 * - 여기서는 루트(OrderQueryDTO)를 키셋 페이징으로 pageSize 씩 조회하고, 페이지마다 컬렉션(OrderItemQueryDto) 조회를 orderQueryExecutor 에 넘긴다.
+	 * - 페이지 N 의 컬렉션 조회와 페이지 N+1 의 루트 조회가 서로 다른 스레드(커넥션)에서 동시에 실행되므로 전체 응답 시간이 줄어든다.
+	 * - 각 작업은 다른 작업을 기다리지 않으므로 스레드 풀이 가득 차도 데드락이 생기지 않는다. (큐가 넘치면 요청 스레드에서 직접 실행)
+	 * 
+	 * @param pageSize 루트 한 페이지 크기 (IN 절 청크 크기를 넘지 않는다)
+	 */
+	public List<OrderQueryDTO> findAllByDTO_pipelined(int pageSize) {
+		int size = Math.max(1, Math.min(pageSize, inChunkSize));
+		
+		List<OrderQueryDTO> result = new ArrayList<>();
+		List<CompletableFuture<Void>> orderItemLoads = new ArrayList<>();
+		
+		CompletableFuture<List<OrderQueryDTO>> nextPage = CompletableFuture.supplyAsync(() -> findOrdersChunk(null, size), orderQueryExecutor);
+		while (nextPage != null) {
+			List<OrderQueryDTO> page = join(nextPage);
+			if (page.isEmpty()) {
+				break;
+			}
+			result.addAll(page);
+			
+			// 1. 다음 페이지 루트 조회를 먼저 시작 (마지막 페이지면 종료)
+			Long lastOrderId = page.get(page.size() - 1).getOrderId();
+			nextPage = page.size() < size ? null 
+					: CompletableFuture.supplyAsync(() -> findOrdersChunk(lastOrderId, size), orderQueryExecutor);
+			
+			// 2. 현재 페이지의 OrderItemQueryDTO 조회 후 셋팅
+			orderItemLoads.add(CompletableFuture
+					.supplyAsync(() -> meterRegistry.timer("jpashop.order.items.chunk").record(() -> findOrderItemsChunk(toOrderIds(page))), orderQueryExecutor)
+					.thenAccept(queryDtos -> {
+						Map<Long, List<OrderItemQueryDto>> map = queryDtos.stream().collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+						page.forEach(o -> o.setOrderItems(map.getOrDefault(o.getOrderId(), new ArrayList<>())));
+					}));
+		}
+		
+		// 3. 모든 페이지의 컬렉션 조회가 끝날 때까지 대기
+		orderItemLoads.forEach(OrderQueryRepository::join);
+		return result;
+	}
+	
+	// 루트 한 페이지를 별도의 EntityManager 로 조회 (orderQueryExecutor 스레드에서 실행)
+	private List<OrderQueryDTO> findOrdersChunk(Long lastOrderId, int limit) {
+		EntityManager chunkEm = emf.createEntityManager();
+		try {
+			String jpql = "select new jpabook.jpashop.repository.order.query.OrderQueryDTO(o.id, m.name, o.orderDate, o.status, d.address)"
+					+ " from Order o"
+					+ " join o.member m"
+					+ " join o.delivery d";
+			if (lastOrderId != null) {
+				jpql += " where o.id > :lastOrderId";
+			}
+			jpql += " order by o.id";
+			
+			TypedQuery<OrderQueryDTO> query = chunkEm.createQuery(jpql, OrderQueryDTO.class)
+					.setMaxResults(limit);
+			if (lastOrderId != null) {
+				query.setParameter("lastOrderId", lastOrderId);
+			}
+			return query.getResultList();
+		} finally {
+			chunkEm.close();
+		}
+	}
+	
 	// orderid를 리스트로 추출
 	private List<Long> toOrderIds(List<OrderQueryDTO> queryDTOs){
 		return queryDTOs.stream()
@@ -59,20 +180,102 @@ public class OrderQueryRepository {
 				.collect(Collectors.toList());
 	}
 	
-	// OrderItemQueryDTO in 조회 및 OrderItemQueryDTO -> Map 변환
-	private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-		// 3. OrderItemQueryDTO in 조회
-		List<OrderItemQueryDto> queryDtos = em.createQuery(""
+	/**
+	 * IN 절 청크 분할 + 병렬 조회
+	 * - orderId 를 한번에 in 절에 넣으면 DB의 IN 절 파라미터 제한(예: Oracle 1000개)을 넘거나 실행계획이 너무 커진다.
+	 * - jpashop.query.in-chunk-size 단위로 잘라서 조회하고, 청크가 여러개면 orderQueryExecutor 에서 동시에 실행한다.
+	 * - EntityManager 는 스레드간에 공유하면 안되므로 청크마다 별도의 EntityManager(=별도의 커넥션)로 조회한다.
+	 * - 요청 스레드는 커넥션을 잡은 채로 청크 작업을 기다리므로, 병렬 조회 허가(orderQueryFanOutPermits)를 기다리지 않고 얻은 경우에만 나눠서 실행한다.
+	 *   허가를 얻지 못하면 현재 EntityManager 로 순서대로 조회한다. (jpashop.order.items.sequential 메트릭)
+	 * - 청크 수(jpashop.order.items.chunks), 청크별 조회 시간(jpashop.order.items.chunk) 메트릭을 남긴다.
+	 * @param parallel false 면 청크를 현재 EntityManager 로 순서대로 조회한다.
+	 */
+	private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds, boolean parallel) {
+		if (orderIds.isEmpty()) {
+			return new HashMap<>();
+		}
+		
+		List<List<Long>> chunks = toChunks(orderIds, inChunkSize);
+		meterRegistry.summary("jpashop.order.items.chunks").record(chunks.size());
+		Timer chunkTimer = meterRegistry.timer("jpashop.order.items.chunk");
+		
+		// 청크가 하나면 스레드를 넘길 필요 없이 현재 EntityManager 로 조회
+		if (chunks.size() == 1 || !parallel) {
+			return findOrderItemMapSequential(chunks, chunkTimer);
+		}
+		if (!orderQueryFanOutPermits.tryAcquire()) {
+			meterRegistry.counter("jpashop.order.items.sequential").increment();
+			return findOrderItemMapSequential(chunks, chunkTimer);
+		}
+		
+		try {
+			List<CompletableFuture<List<OrderItemQueryDto>>> futures = chunks.stream()
+					.map(chunk -> CompletableFuture.supplyAsync(() -> chunkTimer.record(() -> findOrderItemsChunk(chunk)), orderQueryExecutor))
+					.collect(Collectors.toList());
+			
+			// 청크별 결과를 하나의 Map 으로 병합 (orderId 는 하나의 청크에만 속하므로 충돌하지 않는다)
+			Map<Long, List<OrderItemQueryDto>> result = new HashMap<>();
+			for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+				for (OrderItemQueryDto queryDto : join(future)) {
+					result.computeIfAbsent(queryDto.getOrderId(), orderId -> new ArrayList<>()).add(queryDto);
+				}
+			}
+			return result;
+		} finally {
+			orderQueryFanOutPermits.release();
+		}
+	}
+	
+	// 청크를 현재 EntityManager 로 순서대로 조회 (추가 커넥션 없음)
+	private Map<Long, List<OrderItemQueryDto>> findOrderItemMapSequential(List<List<Long>> chunks, Timer chunkTimer) {
+		Map<Long, List<OrderItemQueryDto>> result = new HashMap<>();
+		for (List<Long> chunk : chunks) {
+			for (OrderItemQueryDto queryDto : chunkTimer.record(() -> findOrderItemsIn(em, chunk))) {
+				result.computeIfAbsent(queryDto.getOrderId(), orderId -> new ArrayList<>()).add(queryDto);
+			}
+		}
+		return result;
+	}
+	
+	// 청크 하나를 별도의 EntityManager 로 조회 (orderQueryExecutor 스레드에서 실행)
+	private List<OrderItemQueryDto> findOrderItemsChunk(List<Long> orderIds) {
+		EntityManager chunkEm = emf.createEntityManager();
+		try {
+			return findOrderItemsIn(chunkEm, orderIds);
+		} finally {
+			chunkEm.close();
+		}
+	}
+	
+	// 3. OrderItemQueryDTO in 조회
+	private List<OrderItemQueryDto> findOrderItemsIn(EntityManager entityManager, List<Long> orderIds) {
+		return entityManager.createQuery(""
 				+ "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)"
 				+ " from OrderItem oi"
 				+ " join oi.item i"
 				+ " where oi.order.id in :orderIds", OrderItemQueryDto.class)
 				.setParameter("orderIds", orderIds)
 				.getResultList();
-		
-		
-		// 3-1. OrderItemQueryDTO -> Map 변환
-		return queryDtos.stream().collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+	}
+	
+	private static List<List<Long>> toChunks(List<Long> ids, int chunkSize) {
+		List<List<Long>> chunks = new ArrayList<>();
+		for (int from = 0; from < ids.size(); from += chunkSize) {
+			chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+		}
+		return chunks;
+	}
+	
+	// 청크 조회 중 발생한 예외는 CompletionException 을 벗겨서 그대로 던진다.
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
 	}
 	
 	// OrderQueryDTO 조회
@@ -96,5 +299,49 @@ public class OrderQueryRepository {
 				.getResultList();
 	}
 
+	/**
+	 * 플랫 데이터 스트리밍 조회
+	 * - findAllByDTO_flat() 은 전체 row 를 List 로 한번에 메모리에 올린다. 주문이 수백만건이면 힙이 버티지 못한다.
+	 * - getResultStream() 은 하이버네이트 내부에서 ScrollableResults(FORWARD_ONLY) 로 동작하므로 커서를 앞으로만 읽으면서 한 row 씩 가져온다.
+	 * - JDBC fetch size 만큼씩만 DB에서 가져오고, order by o.id 로 정렬되어 있으므로 주문 id 가 바뀌는 시점에 OrderQueryDTO 하나를 완성해서 consumer 에 넘긴다.
+	 * - 메모리에는 현재 조립중인 주문 1건과 fetch size 만큼의 row 만 유지되므로 1만건이든 1000만건이든 힙 사용량이 같다.
+	 * - 스트림을 다 읽을 때까지 커넥션을 잡고 있어야 하므로 트랜잭션 안에서 실행한다.
+	 * 
+	 	※ 참고
+	 		· MySQL 드라이버는 fetch size 가 Integer.MIN_VALUE 이거나 useCursorFetch=true 인 경우에만 실제로 스트리밍한다.
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllByDTO_flat(Consumer<OrderQueryDTO> consumer) {
+		try (Stream<OrderFlatDTO> flats = em.createQuery(
+				"select new jpabook.jpashop.repository.order.query.OrderFlatDTO(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)"
+				+ " from Order o"
+				+ " join o.member m"
+				+ " join o.delivery d"
+				+ " join o.orderItems oi"
+				+ " join oi.item i"
+				+ " order by o.id", OrderFlatDTO.class)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+				.getResultStream()) {
+			
+			OrderQueryDTO current = null;
+			Iterator<OrderFlatDTO> iterator = flats.iterator();
+			while (iterator.hasNext()) {
+				OrderFlatDTO flat = iterator.next();
+				
+				// 주문 id 가 바뀌면 이전 주문은 완성된 것이므로 내보낸다.
+				if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+					if (current != null) {
+						consumer.accept(current);
+					}
+					current = new OrderQueryDTO(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress(), new ArrayList<>());
+				}
+				current.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+			}
+			
+			if (current != null) {
+				consumer.accept(current);
+			}
+		}
+	}
 	
 }
@@ -0,0 +1,95 @@
+package jpabook.jpashop.repository.order.simplequery;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jpabook.jpashop.service.MemberChangedEvent;
+import jpabook.jpashop.service.OrderChangedEvent;
+
+/**
+ * OrderSimpleRepository.findOrderDTOs() 결과 캐시
+ * 
+ 	· 주문은 조회에 비해 변경이 훨씬 적으므로 3개 테이블 조인 결과(OrderSimpleQueryDTO 목록)를 메모리에 캐시한다.
+ 	· 주문 생성/취소가 커밋된 시점(OrderChangedEvent, AFTER_COMMIT)에 무효화한다. 롤백된 변경으로는 무효화되지 않는다.
+ 	· 목록에 회원 이름이 있으므로 회원 이름이 변경된 경우(MemberChangedEvent)에도 무효화한다.
+ 	· 조회 중에 무효화가 일어나면 방금 조회한 결과는 이미 오래된 데이터일 수 있으므로 캐시에 남기지 않는다. (generation 비교)
+ 	· jpashop.cache.simple-orders.ttl : 최대 보관 시간
+ 	· jpashop.cache.simple-orders.max-rows : 캐시에 보관할 최대 row 수 (넘으면 캐시하지 않는다)
+ 	
+ 	※ 참고
+ 		· 캐시된 목록은 여러 요청이 같이 사용하므로 수정할 수 없는 List 로 반환한다.
+ */
+@Component
+public class OrderSimpleQueryCache {
+
+	private static final String ALL_ORDERS = "all";
+	
+	private final OrderSimpleRepository orderSimpleRepository;
+	private final Cache<String, List<OrderSimpleQueryDTO>> cache;
+	
+	// 무효화될 때마다 증가
+	private final AtomicLong generation = new AtomicLong();
+	
+	public OrderSimpleQueryCache(OrderSimpleRepository orderSimpleRepository, MeterRegistry meterRegistry,
+			@Value("${jpashop.cache.simple-orders.ttl:60s}") Duration ttl,
+			@Value("${jpashop.cache.simple-orders.max-rows:100000}") long maxRows) {
+		this.orderSimpleRepository = orderSimpleRepository;
+		this.cache = Caffeine.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumWeight(maxRows)
+				.weigher((String key, List<OrderSimpleQueryDTO> orders) -> orders.size())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "simpleOrders");
+	}
+	
+	public List<OrderSimpleQueryDTO> findOrderDTOs() {
+		List<OrderSimpleQueryDTO> cached = cache.getIfPresent(ALL_ORDERS);
+		if (cached != null) {
+			return cached;
+		}
+		
+		long before = generation.get();
+		List<OrderSimpleQueryDTO> orders = Collections.unmodifiableList(orderSimpleRepository.findOrderDTOs());
+		
+		if (generation.get() == before) {
+			cache.put(ALL_ORDERS, orders);
+			
+			// put 직전에 무효화가 끼어들었으면 다시 지운다.
+			if (generation.get() != before) {
+				cache.invalidate(ALL_ORDERS);
+			}
+		}
+		return orders;
+	}
+	
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onOrderChanged(OrderChangedEvent event) {
+		invalidate();
+	}
+	
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onMemberChanged(MemberChangedEvent event) {
+		// 신규 회원은 아직 주문이 없다.
+		if (event.getOldName() != null && !event.getOldName().equals(event.getNewName())) {
+			invalidate();
+		}
+	}
+	
+	public void invalidate() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+}
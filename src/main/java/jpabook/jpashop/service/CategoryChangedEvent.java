@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 카테고리 변경 이벤트
+ * - 카테고리 등록 시 CategoryService 에서 발행한다.
+ * - 카테고리 트리 스냅샷(CategoryTree)이 커밋 이후(AFTER_COMMIT) 해당 카테고리와 하위 카테고리를 다시 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+	private final Long categoryId;
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 카테고리 상품 추가/제외 이벤트
+ * - CategoryService 에서 발행한다.
+ * - 카테고리별 상품 비트맵(CategoryItemIndex)이 커밋 이후(AFTER_COMMIT) 반영한다.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryItemChangedEvent {
+	private final Long categoryId;
+	private final Long itemId;
+	private final boolean added;
+}
@@ -0,0 +1,118 @@
+package jpabook.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryItemIndex;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+	private final CategoryRepository categoryRepository;
+	private final ItemRepository itemRepository;
+	private final CategoryTree categoryTree;
+	private final CategoryItemIndex categoryItemIndex;
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * 카테고리 등록
+	 * @param parentId 부모 카테고리 (루트면 null)
+	 */
+	@Transactional
+	public Long create(String name, Long parentId) {
+		Category category = new Category();
+		category.setName(name);
+		
+		if (parentId != null) {
+			findCategory(parentId).addChildCategory(category);
+		}
+		categoryRepository.save(category);
+		
+		eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+		return category.getId();
+	}
+
+	/**
+	 * 카테고리에 상품 추가
+	 */
+	@Transactional
+	public void addItem(Long categoryId, Long itemId) {
+		Category category = findCategory(categoryId);
+		Item item = itemRepository.findOne(itemId);
+		if (item == null) {
+			throw new IllegalArgumentException("상품이 없습니다. itemId=" + itemId);
+		}
+		
+		if (!category.getItems().contains(item)) {
+			category.getItems().add(item);
+			item.getCategories().add(category);
+			eventPublisher.publishEvent(new CategoryItemChangedEvent(categoryId, itemId, true));
+		}
+	}
+
+	/**
+	 * 카테고리에서 상품 제외
+	 */
+	@Transactional
+	public void removeItem(Long categoryId, Long itemId) {
+		Category category = findCategory(categoryId);
+		Item item = itemRepository.findOne(itemId);
+		
+		if (item != null && category.getItems().remove(item)) {
+			item.getCategories().remove(category);
+			eventPublisher.publishEvent(new CategoryItemChangedEvent(categoryId, itemId, false));
+		}
+	}
+
+	/**
+	 * 카테고리와 하위 카테고리 전체의 상품
+	 * - 카테고리 경로는 트리 스냅샷에서 찾는다. (스냅샷 생성 전이거나 없으면 DB 조회)
+	 */
+	public List<Item> findItemsInSubtree(Long categoryId, int offset, int limit) {
+		CategoryTree.Node node = categoryTree.isReady() ? categoryTree.getSnapshot().getNode(categoryId) : null;
+		String subtreePath = node != null ? node.getSubtreePath() : findCategory(categoryId).getSubtreePath();
+		
+		return categoryRepository.findItemsInSubtree(categoryId, subtreePath, offset, limit);
+	}
+
+	/**
+	 * 여러 카테고리 조건으로 상품 조회 (id 오름차순)
+	 * - 카테고리 상품 비트맵(CategoryItemIndex)으로 조건에 맞는 상품 id 를 구하고, 요청한 페이지의 id 만 IN 으로 조회한다.
+	 * - 비트맵을 사용할 수 없으면(기동 전) category_item 조인으로 조회한다.
+	 * 
+	 * @param matchAll true : 모든 카테고리에 속한 상품(AND), false : 하나라도 속한 상품(OR)
+	 */
+	public List<Item> findItemsByCategories(List<Long> categoryIds, boolean matchAll, int offset, int limit) {
+		Roaring64NavigableMap itemIds = categoryItemIndex.findItemIds(categoryIds, matchAll);
+		if (itemIds == null) {
+			return itemRepository.findAllByCategories(categoryIds, matchAll, offset, limit);
+		}
+		
+		List<Item> items = new ArrayList<>(itemRepository.findAllById(CategoryItemIndex.page(itemIds, offset, limit)));
+		items.sort(Comparator.comparing(Item::getId));
+		return items;
+	}
+
+	private Category findCategory(Long categoryId) {
+		Category category = categoryRepository.findOne(categoryId);
+		if (category == null) {
+			throw new IllegalArgumentException("카테고리가 없습니다. categoryId=" + categoryId);
+		}
+		return category;
+	}
+}
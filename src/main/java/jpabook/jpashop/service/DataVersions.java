@@ -0,0 +1,70 @@
+package jpabook.jpashop.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 데이터 버전 (주문, 회원, 상품)
+ * 
+ 	· 변경이 커밋될 때마다(AFTER_COMMIT) 1씩 증가한다. 롤백된 변경으로는 증가하지 않는다.
+ 		· 주문 : OrderChangedEvent (주문 생성/취소)
+ 		· 회원 : MemberChangedEvent (가입, 수정, 일괄 등록)
+ 		· 상품 : ItemChangedEvent (등록, 수정), OrderChangedEvent (주문/취소로 재고가 바뀐다)
+ 	· 버전이 같으면 응답도 같으므로 목록 API 의 ETag 로 사용한다. (ConditionalJsonResponses)
+ 	· 시작값은 기동 시각(ms)이다. 재기동 후 이전 ETag 와 겹치지 않는다.
+ 	
+ 	※ 참고
+ 		· 이 서버에서 커밋한 변경만 안다. 여러 서버로 운영하거나 SQL 로 직접 변경하는 경우에는 공유 저장소(DB 버전 테이블 등)가 필요하다.
+ */
+@Component
+public class DataVersions {
+
+	public enum Aggregate { ORDERS, MEMBERS, ITEMS }
+
+	private final Map<Aggregate, AtomicLong> versions = new EnumMap<>(Aggregate.class);
+
+	public DataVersions() {
+		long start = System.currentTimeMillis();
+		for (Aggregate aggregate : Aggregate.values()) {
+			versions.put(aggregate, new AtomicLong(start));
+		}
+	}
+
+	public long get(Aggregate aggregate) {
+		return versions.get(aggregate).get();
+	}
+
+	public void bump(Aggregate aggregate) {
+		versions.get(aggregate).incrementAndGet();
+	}
+
+	/**
+	 * 이벤트 없이 데이터를 넣은 경우 (SeedDB 등)
+	 */
+	public void bumpAll() {
+		for (AtomicLong version : versions.values()) {
+			version.incrementAndGet();
+		}
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onOrderChanged(OrderChangedEvent event) {
+		bump(Aggregate.ORDERS);
+		bump(Aggregate.ITEMS);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onMemberChanged(MemberChangedEvent event) {
+		bump(Aggregate.MEMBERS);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onItemChanged(ItemChangedEvent event) {
+		bump(Aggregate.ITEMS);
+	}
+}
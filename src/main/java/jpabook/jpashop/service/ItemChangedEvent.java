@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 상품 변경 이벤트
+ * - 상품 등록, 수정 시 ItemService 에서 발행한다.
+ * - 재고를 메모리에 들고 있는 경우(StockLedger) 커밋 이후(AFTER_COMMIT) DB 값으로 다시 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemChangedEvent {
+	private final Long itemId;
+}
@@ -2,6 +2,7 @@ package jpabook.jpashop.service;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 public class ItemService {
 	
 	private final ItemRepository itemRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	
 	/**
@@ -25,6 +27,7 @@ public class ItemService {
 	@Transactional
 	public void saveItem(Item item) {
 		itemRepository.save(item);
+		eventPublisher.publishEvent(new ItemChangedEvent(item.getId()));
 	}
 	
 	/**\
@@ -39,6 +42,7 @@ public class ItemService {
 //		item.setStockQuantity(stockQuantity);
 		
 		item.change(name, price, stockQuantity);
+		eventPublisher.publishEvent(new ItemChangedEvent(itemId));
 	}
 	
 	/**\
@@ -49,7 +53,7 @@ public class ItemService {
 	public void updateItemBook(ItemDTO itemDTO) {
 		Book book = (Book)itemRepository.findOne(itemDTO.getId());
 		book.change(itemDTO);
-		
+		eventPublisher.publishEvent(new ItemChangedEvent(itemDTO.getId()));
 	}
 	
 	/**
@@ -0,0 +1,17 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 회원 변경 이벤트
+ * - 회원 가입, 수정, 일괄 등록 시 발행한다. (가입, 일괄 등록은 oldName 이 null)
+ * - 회원 이름 검색 인덱스(MemberNameIndex), 주문 목록 캐시(OrderSimpleQueryCache)가 커밋 이후(AFTER_COMMIT) 반영한다.
+ */
+@Getter
+@AllArgsConstructor
+public class MemberChangedEvent {
+	private final Long memberId;
+	private final String oldName;
+	private final String newName;
+}
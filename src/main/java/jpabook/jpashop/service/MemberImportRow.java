@@ -0,0 +1,17 @@
+package jpabook.jpashop.service;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+/**
+ * 회원 일괄 등록 한 줄
+ * - 검증 규칙은 회원 등록 API(MemberApiController.CreateMemberRequest)와 같다.
+ */
+@Data
+public class MemberImportRow {
+	@NotEmpty(message = "회원이름은 필수값 입니다.")
+	private String name;
+	private String city;
+	private String street;
+	private String zipcode;
+}
@@ -0,0 +1,310 @@
+package jpabook.jpashop.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 회원 일괄 등록 (CSV, NDJSON)
+ * 
+ 	· 요청 바디를 한 줄씩 읽는다. 전체를 메모리에 올리지 않는다.
+ 		· CSV : 첫 줄은 헤더 (name,city,street,zipcode), 값에 쉼표가 있으면 "" 로 감싼다.
+ 		· NDJSON : 한 줄에 회원 하나 {"name":"..","city":"..","street":"..","zipcode":".."}
+ 	· chunk-size 줄 단위로 처리한다.
+ 		1. 검증 : 회원 등록 API 와 같은 규칙 (MemberImportRow, Bean Validation)
+ 		2. 중복 확인 : chunk 안의 중복은 메모리에서, DB 와의 중복은 IN 쿼리 한번으로 확인한다. 
+ 		   블룸 필터(MemberNameFilter)가 확실히 없다고 한 이름은 IN 쿼리에서도 뺀다.
+ 		3. 저장 : chunk 마다 트랜잭션 하나, insert 는 hibernate.jdbc.batch_size 로 묶인다.
+ 	· 저장하지 못한 줄은 줄 번호, 이름, 사유를 반환한다. (최대 max-rejected-report 건, 건수는 전체)
+ 	
+ 	※ 참고
+ 		· 확인과 저장 사이에 다른 요청이 같은 이름으로 가입하면 유니크 제약조건(uk_member_name)으로 chunk 저장이 실패한다. 
+ 		  이 경우 블룸 필터 없이 중복 확인부터 한번 더 실행하고, 그래도 실패하면 chunk 전체를 실패로 반환한다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+	public enum Format { CSV, NDJSON }
+
+	private final EntityManager em;
+	private final Validator validator;
+	private final MemberNameFilter memberNameFilter;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ObjectReader rowReader;
+	private final TransactionTemplate transactionTemplate;
+	private final int chunkSize;
+	private final int maxRejectedReport;
+
+	public MemberImportService(EntityManager em, Validator validator, MemberNameFilter memberNameFilter, ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+			PlatformTransactionManager transactionManager,
+			@Value("${jpashop.member.import.chunk-size:1000}") int chunkSize,
+			@Value("${jpashop.member.import.max-rejected-report:1000}") int maxRejectedReport) {
+		this.em = em;
+		this.validator = validator;
+		this.memberNameFilter = memberNameFilter;
+		this.eventPublisher = eventPublisher;
+		this.rowReader = objectMapper.readerFor(MemberImportRow.class);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+		this.maxRejectedReport = maxRejectedReport;
+	}
+
+	public ImportResult importMembers(InputStream body, Format format) throws IOException {
+		long started = System.currentTimeMillis();
+		ImportResult result = new ImportResult();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+		
+		long lineNumber = 0;
+		if (format == Format.CSV) {
+			reader.readLine();	// 헤더
+			lineNumber++;
+		}
+		
+		List<NumberedRow> chunk = new ArrayList<>(chunkSize);
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			result.total++;
+			
+			MemberImportRow row;
+			try {
+				row = format == Format.CSV ? parseCsv(line) : rowReader.readValue(line);
+				if (row == null) {	// NDJSON 줄이 null
+					throw new IllegalArgumentException("회원 정보가 없습니다.");
+				}
+			} catch (JsonProcessingException e) {
+				result.reject(lineNumber, null, "형식 오류 : " + e.getOriginalMessage(), maxRejectedReport);
+				continue;
+			} catch (IllegalArgumentException e) {
+				result.reject(lineNumber, null, "형식 오류 : " + e.getMessage(), maxRejectedReport);
+				continue;
+			}
+			
+			String invalid = validate(row);
+			if (invalid != null) {
+				result.reject(lineNumber, row.getName(), invalid, maxRejectedReport);
+				continue;
+			}
+			
+			chunk.add(new NumberedRow(lineNumber, row));
+			if (chunk.size() >= chunkSize) {
+				saveChunk(chunk, result);
+				chunk.clear();
+			}
+		}
+		saveChunk(chunk, result);
+		
+		result.elapsedMillis = System.currentTimeMillis() - started;
+		log.info("회원 일괄 등록 : 전체 {}, 등록 {}, 거절 {} ({} ms)", result.total, result.imported, result.rejected, result.elapsedMillis);
+		return result;
+	}
+
+	private String validate(MemberImportRow row) {
+		Set<ConstraintViolation<MemberImportRow>> violations = validator.validate(row);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+	}
+
+	private void saveChunk(List<NumberedRow> chunk, ImportResult result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		
+		for (int attempt = 1; ; attempt++) {
+			List<NumberedRow> accepted = new ArrayList<>(chunk.size());
+			List<NumberedRow> duplicates = new ArrayList<>();
+			
+			try {
+				boolean useFilter = attempt == 1;
+				transactionTemplate.executeWithoutResult(status -> {
+					Set<String> existing = findExistingNames(chunk, useFilter);
+					Set<String> seen = new HashSet<>();
+					for (NumberedRow numbered : chunk) {
+						String name = numbered.row.getName();
+						if (existing.contains(name) || !seen.add(name)) {
+							duplicates.add(numbered);
+							continue;
+						}
+						Member member = toMember(numbered.row);
+						em.persist(member);
+						eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), null, name));
+						accepted.add(numbered);
+					}
+					em.flush();
+					em.clear();
+				});
+			} catch (DataIntegrityViolationException | PersistenceException e) {
+				// em.flush() 는 서비스에서 직접 호출하므로 예외 변환 없이 PersistenceException(원인 ConstraintViolationException)으로, 
+				// 커밋에서는 스프링 예외(DataIntegrityViolationException)로 올라온다.
+				if (!isConstraintViolation(e)) {
+					throw e;
+				}
+				if (attempt < 2) {
+					log.debug("회원 일괄 등록 중 이름 중복 발생, 다시 확인합니다. (line {} ~)", chunk.get(0).lineNumber);
+					continue;
+				}
+				for (NumberedRow numbered : chunk) {
+					result.reject(numbered.lineNumber, numbered.row.getName(), "저장 실패 : 이름 중복", maxRejectedReport);
+				}
+				return;
+			}
+			
+			for (NumberedRow numbered : duplicates) {
+				result.reject(numbered.lineNumber, numbered.row.getName(), "이미 존재하는 회원입니다.", maxRejectedReport);
+			}
+			for (NumberedRow numbered : accepted) {
+				memberNameFilter.put(numbered.row.getName());
+			}
+			result.imported += accepted.size();
+			return;
+		}
+	}
+
+	private static boolean isConstraintViolation(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException || cause instanceof DataIntegrityViolationException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * chunk 의 이름 중 DB 에 이미 있는 이름 (IN 쿼리 한번)
+	 * - 블룸 필터가 확실히 없다고 한 이름은 조회하지 않는다.
+	 * - 다시 확인할 때는(useFilter = false) 블룸 필터를 믿지 않는다. 다른 서버나 SQL 로 저장된 이름은 필터에 없다.
+	 */
+	private Set<String> findExistingNames(List<NumberedRow> chunk, boolean useFilter) {
+		Set<String> candidates = new HashSet<>();
+		for (NumberedRow numbered : chunk) {
+			if (!useFilter || memberNameFilter.mightContain(numbered.row.getName())) {
+				candidates.add(numbered.row.getName());
+			}
+		}
+		if (candidates.isEmpty()) {
+			return candidates;
+		}
+		
+		return new HashSet<>(em.createQuery("select m.name from Member m where m.name in :names", String.class)
+				.setParameter("names", candidates)
+				.getResultList());
+	}
+
+	private Member toMember(MemberImportRow row) {
+		Member member = new Member();
+		member.setName(row.getName());
+		member.setAddress(new Address(row.getCity(), row.getStreet(), row.getZipcode()));
+		return member;
+	}
+
+	/**
+	 * CSV 한 줄 (name,city,street,zipcode)
+	 * - "" 로 감싼 값 안의 쉼표, "" (따옴표 이스케이프) 지원
+	 */
+	static MemberImportRow parseCsv(String line) {
+		List<String> values = new ArrayList<>(4);
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+		}
+		values.add(value.toString().trim());
+		
+		if (values.size() != 4) {
+			throw new IllegalArgumentException("컬럼 수가 4개가 아닙니다. (" + values.size() + "개)");
+		}
+		
+		MemberImportRow row = new MemberImportRow();
+		row.setName(values.get(0));
+		row.setCity(values.get(1));
+		row.setStreet(values.get(2));
+		row.setZipcode(values.get(3));
+		return row;
+	}
+
+	@AllArgsConstructor
+	private static class NumberedRow {
+		private final long lineNumber;
+		private final MemberImportRow row;
+	}
+
+	@Getter
+	public static class ImportResult {
+		private long total;
+		private long imported;
+		private long rejected;
+		private long elapsedMillis;
+		private final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+		private void reject(long lineNumber, String name, String reason, int maxReport) {
+			rejected++;
+			if (rejectedRows.size() < maxReport) {
+				rejectedRows.add(new RejectedRow(lineNumber, name, reason));
+			}
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class RejectedRow {
+		private final long line;
+		private final String name;
+		private final String reason;
+	}
+}
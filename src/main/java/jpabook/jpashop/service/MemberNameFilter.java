@@ -0,0 +1,162 @@
+package jpabook.jpashop.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 회원 이름 블룸 필터
+ * 
+ 	· 회원 가입 시 이름 중복 확인 SELECT 를 줄이기 위한 메모리 필터이다.
+ 		· mightContain = false : 확실히 없는 이름이다. 조회하지 않고 바로 저장한다.
+ 		· mightContain = true : 있을 수도 있다. (오탐, false positive) DB 에서 확인한다.
+ 	· 중복을 막는 것은 DB 유니크 제약조건(uk_member_name)이다. 필터가 틀려도(다른 서버, JDBC 로 직접 넣은 데이터 등) 제약조건에서 걸린다.
+ 	· 기동 시(ApplicationReadyEvent) 회원 테이블의 이름으로 채운다. 채우기 전에는 항상 true 를 반환한다.
+ 	· 삭제는 지원하지 않는다. 이름이 변경되어도 이전 이름은 남는다. (오탐만 늘어난다.)
+ 	· 크기
+ 		· 비트 수 m = -n * ln(p) / (ln 2)^2, 해시 수 k = m / n * ln 2 (n : expected-insertions, p : fpp)
+ 		· 기본값(100만건, 1%) : 약 1.2 MB, 해시 7개
+ 	· 메트릭
+ 		· jpashop.member.name_filter.bytes : 메모리 사용량
+ 		· jpashop.member.name_filter.expected_fpp : 현재 건수 기준 예상 오탐률
+ 		· jpashop.member.name_filter.checks (result=absent|maybe), jpashop.member.name_filter.false_positives
+ 		  -> 실제 오탐률 = false_positives / checks(result=maybe)
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final AtomicLongArray bits;
+	private final long bitSize;
+	private final int hashCount;
+	private final AtomicLong insertions = new AtomicLong();
+	private volatile boolean ready;
+
+	private final Counter absent;
+	private final Counter maybe;
+	private final Counter falsePositives;
+
+	public MemberNameFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+			@Value("${jpashop.member.name-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${jpashop.member.name-filter.fpp:0.01}") double fpp) {
+		this.jdbcTemplate = jdbcTemplate;
+		
+		long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (m + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitSize = words * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+		
+		this.absent = meterRegistry.counter("jpashop.member.name_filter.checks", "result", "absent");
+		this.maybe = meterRegistry.counter("jpashop.member.name_filter.checks", "result", "maybe");
+		this.falsePositives = meterRegistry.counter("jpashop.member.name_filter.false_positives");
+		Gauge.builder("jpashop.member.name_filter.bytes", this, f -> f.bitSize / 8.0).register(meterRegistry);
+		Gauge.builder("jpashop.member.name_filter.expected_fpp", this, MemberNameFilter::expectedFpp).register(meterRegistry);
+	}
+
+	/**
+	 * 회원 테이블의 이름으로 채운다.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		long started = System.currentTimeMillis();
+		jdbcTemplate.query("select name from member", rs -> {
+			put(rs.getString(1));
+		});
+		ready = true;
+		log.info("회원 이름 필터 생성 : {}건, {} KB, 해시 {}개, 예상 오탐률 {} ({} ms)", 
+				insertions.get(), bitSize / 8 / 1024, hashCount, String.format("%.4f", expectedFpp()), System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * 이름이 있을 수도 있으면 true, 확실히 없으면 false
+	 */
+	public boolean mightContain(String name) {
+		if (!ready || name == null) {
+			return true;
+		}
+		
+		long hash = hash(name);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long index = index(h1 + i * h2);
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				absent.increment();
+				return false;
+			}
+		}
+		maybe.increment();
+		return true;
+	}
+
+	public void put(String name) {
+		if (name == null) {
+			return;
+		}
+		
+		long hash = hash(name);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long index = index(h1 + i * h2);
+			int word = (int) (index >>> 6);
+			long mask = 1L << index;
+			long current;
+			do {
+				current = bits.get(word);
+				if ((current & mask) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(word, current, current | mask));
+		}
+		insertions.incrementAndGet();
+	}
+
+	/**
+	 * mightContain 이 true 였는데 DB 에 없었던 경우 (오탐) 기록
+	 */
+	public void recordFalsePositive() {
+		if (ready) {
+			falsePositives.increment();
+		}
+	}
+
+	/**
+	 * 현재 건수 기준 예상 오탐률 : (1 - e^(-k * n / m))^k
+	 */
+	public double expectedFpp() {
+		return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitSize), hashCount);
+	}
+
+	private long index(int combined) {
+		return (combined & Integer.MAX_VALUE) % bitSize;
+	}
+
+	/**
+	 * 64bit FNV-1a + 비트 섞기 (상위/하위 32bit 를 두개의 해시로 사용)
+	 */
+	private static long hash(String name) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+}
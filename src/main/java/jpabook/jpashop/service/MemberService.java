@@ -1,7 +1,10 @@
 package jpabook.jpashop.service;
 
 import java.util.List;
+import java.util.Objects;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +38,8 @@ public class MemberService {
 	 * 이렇게 사용할 수 있는 이뉴는 README 파일을 읽을 것.
 	 */
 	private final MemberRepository memberRepository;
+	private final MemberNameFilter memberNameFilter;
+	private final ApplicationEventPublisher eventPublisher;
 	
 	
 	/**
@@ -43,7 +48,16 @@ public class MemberService {
 	@Transactional
 	public Long join(Member member) {
 		validateDuplicateMember(member);
-		memberRepository.save(member);
+		
+		try {
+			memberRepository.saveAndFlush(member);
+		} catch (DataIntegrityViolationException e) {
+			// 동시에 같은 이름으로 가입한 경우 (uk_member_name)
+			throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+		}
+		
+		memberNameFilter.put(member.getName());
+		eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), null, member.getName()));
 		return member.getId();
 	}
 
@@ -54,13 +68,18 @@ public class MemberService {
 	private void validateDuplicateMember(Member member) {
 		/**
 		 * 멀티쓰레드 환경에서 같은 이름이 동시에 DB insert를 하게 되면 문제가 생길 수 있다. 
-		 * 따라서 DB에 name을 유니크 제약조건으로 걸어주면 좋다.
+		 * 따라서 DB에 name을 유니크 제약조건으로 걸어주면 좋다. -> Member uk_member_name, join 에서 제약조건 위반을 같은 예외로 변환
+		 * 
+		 * 블룸 필터(MemberNameFilter)가 확실히 없는 이름이라고 하면 조회하지 않는다. (대부분의 신규 가입)
 		 */
-		List<Member> findMembers = memberRepository.findByName(member.getName());
+		if (!memberNameFilter.mightContain(member.getName())) {
+			return;
+		}
 		
-		if(!findMembers.isEmpty()) {
+		if (memberRepository.existsByName(member.getName())) {
 			throw new IllegalStateException("이미 존재하는 회원입니다.");
 		}
+		memberNameFilter.recordFalsePositive();
 	}
 	
 	/**
@@ -68,12 +87,31 @@ public class MemberService {
 	 * CQS(Comman Query Separation)
 	 * - comman와 query를 분리하자.
 	 * - update 메소드는 반환값이 없는 void를 지향하자.
+	 * 
+	 * 이름을 바꾸는 경우 가입(join)과 같이 중복을 확인하고, 동시에 같은 이름으로 바꾼 경우(uk_member_name)도 같은 예외로 변환한다.
+	 * 블룸 필터에는 update 가 성공한 후에 넣는다.
 	 */
 	@Transactional
 	public void updateMember(Long id, UpdateMemberRequest memberReq) {
 		Member member = memberRepository.findOne(id);
+		String oldName = member.getName();
+		boolean renamed = !Objects.equals(oldName, memberReq.getName());
+		if (renamed && memberNameFilter.mightContain(memberReq.getName()) && memberRepository.existsByName(memberReq.getName())) {
+			throw new IllegalStateException("이미 존재하는 회원입니다.");
+		}
+		
 		member.setName(memberReq.getName());
 		member.setAddress(new Address(memberReq.getCity(), memberReq.getStreet(), memberReq.getZipcode()));
+		try {
+			memberRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+		}
+		
+		if (renamed) {
+			memberNameFilter.put(memberReq.getName());
+		}
+		eventPublisher.publishEvent(new MemberChangedEvent(id, oldName, memberReq.getName()));
 	}
 	
 	/**
@@ -83,6 +121,13 @@ public class MemberService {
 		return memberRepository.findAll();
 	}
 	
+	/**
+	 * 회원 전체 조회 - 영속성 컨텍스트 없이 조회 (MemberRepository.findAllStateless)
+	 */
+	public List<Member> findMembersStateless(){
+		return memberRepository.findAllStateless();
+	}
+	
 	/**
 	 * 회원 단건 조회
 	 */
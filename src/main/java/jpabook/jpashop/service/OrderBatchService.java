@@ -0,0 +1,238 @@
+package jpabook.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.exception.OrderOutcomeUnknownException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.stock.StockManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대량 주문
+ * 
+ 	· 주문 chunk-size 건 단위로 트랜잭션을 나눠서 저장한다. 
+ 		· 회원, 상품 가격은 chunk 마다 IN 쿼리 한번으로 조회한다. (주문마다 조회 X)
+ 		· 재고는 주문 상품마다 StockManager 로 차감한다. 동시에 주문해도 초과 판매되지 않는다.
+ 		· insert 는 hibernate.jdbc.batch_size, order_inserts 설정으로 테이블별로 묶여서 JDBC 배치로 실행된다.
+ 		· id 는 시퀀스 pooled 옵티마이저(increment 50)로 메모리에서 할당하므로 배치가 깨지지 않는다. (IDENTITY 전략이면 insert 마다 바로 실행되어 배치 불가)
+ 	· 주문별로 결과를 반환한다.
+ 		· 회원/상품이 없거나 재고가 부족한 주문은 저장하지 않고 실패로 반환한다. 같은 chunk 의 다른 주문은 저장된다.
+ 		· 재고 차감 도중 실패하면 해당 주문에서 이미 차감한 재고는 원복한다.
+ 		· chunk 저장(flush)이 실패하면 해당 chunk 전체가 롤백되므로 chunk 의 주문을 모두 실패로 반환한다.
+ 			· 응답에는 정해진 사유(SAVE_FAILED_MESSAGE)만 담는다. 예외 메시지에는 SQL, 제약조건 이름 등이 들어 있으므로 로그에만 남긴다.
+ 			· 커밋 자체가 실패하면 저장되었는지 알 수 없으므로 OUTCOME_UNKNOWN_MESSAGE 로 반환한다. (error 는 OrderOutcomeUnknownException)
+ 	
+ 	※ 참고
+ 		· 트랜잭션을 chunk 단위로 직접 나누기 위해 @Transactional 대신 TransactionTemplate 을 사용한다.
+ 		· OSIV 로 요청 내내 같은 영속성 컨텍스트를 사용하므로 chunk 마다 flush/clear 한다.
+ */
+@Slf4j
+@Service
+public class OrderBatchService {
+
+	static final String SAVE_FAILED_MESSAGE = "주문 저장 실패 : 일시적인 오류로 저장하지 못했습니다. 다시 시도해 주세요.";
+	static final String OUTCOME_UNKNOWN_MESSAGE = "주문 저장 결과 확인 불가 : 저장 중 오류가 발생했습니다. 다시 주문하지 말고 주문 목록에서 확인해 주세요.";
+
+	private final EntityManager em;
+	private final OrderRepository orderRepository;
+	private final MemberRepository memberRepository;
+	private final ItemRepository itemRepository;
+	private final StockManager stockManager;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
+	private final int chunkSize;
+
+	public OrderBatchService(EntityManager em, OrderRepository orderRepository, MemberRepository memberRepository,
+			ItemRepository itemRepository, StockManager stockManager, ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+			@Value("${jpashop.order.batch.chunk-size:500}") int chunkSize) {
+		this.em = em;
+		this.orderRepository = orderRepository;
+		this.memberRepository = memberRepository;
+		this.itemRepository = itemRepository;
+		this.stockManager = stockManager;
+		this.eventPublisher = eventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * 주문 목록 저장
+	 */
+	public List<OrderResult> placeOrders(List<OrderRequest> requests) {
+		List<OrderResult> results = new ArrayList<>(requests.size());
+		
+		for (int from = 0; from < requests.size(); from += chunkSize) {
+			int to = Math.min(from + chunkSize, requests.size());
+			results.addAll(placeChunk(requests.subList(from, to), from));
+		}
+		
+		return results;
+	}
+
+	/**
+	 * 주문 목록을 한 트랜잭션으로 저장 (chunk-size 로 나누지 않는다.)
+	 * - OrderIntakeQueue 의 그룹 커밋에서 사용한다.
+	 */
+	public List<OrderResult> placeInOneTransaction(List<OrderRequest> requests) {
+		return placeChunk(requests, 0);
+	}
+
+	/**
+	 * chunk 하나를 한 트랜잭션으로 저장
+	 * @param offset chunk 첫 주문의 요청 목록 index
+	 */
+	private List<OrderResult> placeChunk(List<OrderRequest> chunk, int offset) {
+		boolean[] committing = {false};
+		try {
+			return transactionTemplate.execute(status -> {
+				List<OrderResult> results = placeAll(chunk, offset);
+				em.flush();
+				em.clear();
+				committing[0] = true;	// 이후의 실패는 커밋 중 실패
+				return results;
+			});
+		} catch (RuntimeException e) {
+			List<OrderResult> results = new ArrayList<>(chunk.size());
+			
+			// 커밋 도중 실패(커넥션 끊김 등)는 DB 에 반영되었는지 알 수 없다. 롤백이 확실한 경우(rollback-only)만 실패로 반환한다.
+			if (committing[0] && !(e instanceof UnexpectedRollbackException)) {
+				log.error("주문 chunk 커밋 결과 확인 불가 (index {} ~ {})", offset, offset + chunk.size() - 1, e);
+				for (int i = 0; i < chunk.size(); i++) {
+					results.add(OrderResult.failure(offset + i, OUTCOME_UNKNOWN_MESSAGE, new OrderOutcomeUnknownException(OUTCOME_UNKNOWN_MESSAGE, e)));
+				}
+				return results;
+			}
+			
+			log.warn("주문 chunk 저장 실패 (index {} ~ {})", offset, offset + chunk.size() - 1, e);
+			for (int i = 0; i < chunk.size(); i++) {
+				results.add(OrderResult.failure(offset + i, SAVE_FAILED_MESSAGE, e));
+			}
+			return results;
+		}
+	}
+
+	private List<OrderResult> placeAll(List<OrderRequest> chunk, int offset) {
+		Set<Long> memberIds = new HashSet<>();
+		Set<Long> itemIds = new HashSet<>();
+		for (OrderRequest request : chunk) {
+			if (request.getMemberId() != null) {
+				memberIds.add(request.getMemberId());
+			}
+			if (request.getItems() != null) {
+				for (OrderLine line : request.getItems()) {
+					if (line.getItemId() != null) {
+						itemIds.add(line.getItemId());
+					}
+				}
+			}
+		}
+		
+		Map<Long, Member> members = memberRepository.findAllById(memberIds).stream()
+				.collect(Collectors.toMap(Member::getId, Function.identity()));
+		Map<Long, Integer> prices = itemRepository.findPrices(itemIds);
+		
+		List<OrderResult> results = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			OrderRequest request = chunk.get(i);
+			RuntimeException invalid = validate(request, members, prices);
+			if (invalid == null) {
+				invalid = reserveStock(request.getItems());
+			}
+			if (invalid != null) {
+				results.add(OrderResult.failure(offset + i, invalid));
+				continue;
+			}
+			
+			Order order = createOrder(members.get(request.getMemberId()), request.getItems(), prices);
+			orderRepository.save(order);
+			eventPublisher.publishEvent(new OrderChangedEvent(order.getId()));
+			results.add(OrderResult.success(offset + i, order.getId()));
+		}
+		return results;
+	}
+
+	/**
+	 * 저장 전 검증 (회원, 상품 존재 여부, 수량)
+	 * @return 실패 사유 예외 (정상이면 null)
+	 */
+	private RuntimeException validate(OrderRequest request, Map<Long, Member> members, Map<Long, Integer> prices) {
+		if (!members.containsKey(request.getMemberId())) {
+			return new IllegalArgumentException("회원이 존재하지 않습니다. memberId=" + request.getMemberId());
+		}
+		if (request.getItems() == null || request.getItems().isEmpty()) {
+			return new IllegalArgumentException("주문 상품이 없습니다.");
+		}
+		
+		for (OrderLine line : request.getItems()) {
+			if (!prices.containsKey(line.getItemId())) {
+				return new IllegalArgumentException("상품이 존재하지 않습니다. itemId=" + line.getItemId());
+			}
+			if (line.getCount() <= 0) {
+				return new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. itemId=" + line.getItemId());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 재고 차감 (StockManager)
+	 * - 주문의 상품 중 하나라도 재고가 부족하면 이미 차감한 상품을 원복하고 주문을 실패로 처리한다. (보상)
+	 * - 같은 상품이 여러번 포함될 수 있으므로 상품별로 합산해서 차감한다.
+	 * @return 실패 사유 예외 (정상이면 null)
+	 */
+	private RuntimeException reserveStock(List<OrderLine> lines) {
+		Map<Long, Integer> counts = new LinkedHashMap<>();
+		for (OrderLine line : lines) {
+			counts.merge(line.getItemId(), line.getCount(), Integer::sum);
+		}
+		
+		Map<Long, Integer> reserved = new LinkedHashMap<>();
+		for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+			try {
+				stockManager.reserve(entry.getKey(), entry.getValue());
+				reserved.put(entry.getKey(), entry.getValue());
+			} catch (NotEnoughStockException e) {
+				reserved.forEach(stockManager::release);
+				return new NotEnoughStockException("재고가 부족합니다. itemId=" + entry.getKey(), e);
+			}
+		}
+		return null;
+	}
+
+	private Order createOrder(Member member, List<OrderLine> lines, Map<Long, Integer> prices) {
+		Delivery delivery = new Delivery();
+		delivery.setAddress(member.getAddress());
+		
+		OrderItem[] orderItems = new OrderItem[lines.size()];
+		for (int i = 0; i < lines.size(); i++) {
+			OrderLine line = lines.get(i);
+			Item item = itemRepository.getReference(line.getItemId());
+			orderItems[i] = OrderItem.createReservedOrderItem(item, prices.get(line.getItemId()), line.getCount());
+		}
+		
+		return Order.createOrder(member, delivery, orderItems);
+	}
+}
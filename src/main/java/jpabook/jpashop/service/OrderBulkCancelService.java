@@ -0,0 +1,154 @@
+package jpabook.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.stock.StockManager;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 대량 주문 취소
+ * 
+ 	· OrderService.cancelOrder 는 주문 1건마다 주문 조회 + 주문상품 조회 + 상품 조회 + 변경감지 update 가 실행된다. (N x M)
+ 	· 주문 chunk-size 건 단위로 아래 SQL 만 실행한다.
+ 		1. 취소 가능한 주문만 잠금 : 주문상태 ORDER, 배송상태 COMP 가 아닌 주문 (select ... for update)
+ 		2. 주문 상태 변경 : update ... where order_id in (...)
+ 		3. 상품별 수량 합계 조회 : select item_id, sum(count) ... group by item_id
+ 		4. 재고 원복 : 상품별로 한번씩 (StockManager.release)
+ 	· 배송 완료, 이미 취소, 존재하지 않는 주문은 취소하지 않고 skippedIds 로 반환한다.
+ 	· chunk 마다 커밋한다. chunk 저장이 실패하면 그 chunk 만 롤백하고 failedIds 로 반환한 후 다음 chunk 를 계속 취소한다. (이미 커밋된 chunk 의 결과는 그대로 반환)
+ 	· 검색 조건으로 취소할 때는 대상 id 도 chunk-size 건씩 키셋 페이징으로 조회한다. (전체 id 를 한번에 메모리에 올리지 않는다.)
+ 	
+ 	※ 참고
+ 		· 벌크 update 는 영속성 컨텍스트를 거치지 않으므로 chunk 마다 clear 한다. (OSIV 로 같은 영속성 컨텍스트를 사용)
+ 		· 주문 상태 변경(JPQL 벌크 update)은 하이버네이트가 orders 테이블을 사용하는 쿼리 캐시를 비운다.
+ 		· 재고 원복은 StockManager 로 실행하므로 Item region 을 비우지 않는다. (ItemRepository.addStock : JdbcTemplate update + 해당 상품 캐시 잠금, StockLedger : 메모리 원장)
+ 		· 주문 목록 캐시(OrderSimpleQueryCache)는 OrderChangedEvent 로 커밋 이후 무효화된다.
+ */
+@Slf4j
+@Service
+public class OrderBulkCancelService {
+
+	private final EntityManager em;
+	private final OrderRepository orderRepository;
+	private final StockManager stockManager;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
+	private final int chunkSize;
+
+	public OrderBulkCancelService(EntityManager em, OrderRepository orderRepository, StockManager stockManager,
+			ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+			@Value("${jpashop.order.batch.chunk-size:500}") int chunkSize) {
+		this.em = em;
+		this.orderRepository = orderRepository;
+		this.stockManager = stockManager;
+		this.eventPublisher = eventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * 주문 id 목록으로 취소
+	 */
+	public BulkCancelResult cancel(List<Long> orderIds) {
+		List<Long> ids = new ArrayList<>(new HashSet<>(orderIds));
+		BulkCancelResult result = new BulkCancelResult();
+		
+		for (int from = 0; from < ids.size(); from += chunkSize) {
+			cancelChunk(ids.subList(from, Math.min(from + chunkSize, ids.size())), result);
+		}
+		return result;
+	}
+
+	/**
+	 * 검색 조건(회원명, 주문상태)으로 취소
+	 * - 대상 id 를 chunk-size 건씩 조회해서 취소한다.
+	 */
+	public BulkCancelResult cancel(OrderSearch orderSearch) {
+		BulkCancelResult result = new BulkCancelResult();
+		
+		Long afterId = null;
+		while (true) {
+			List<Long> chunk = orderRepository.findCancelableIds(orderSearch, afterId, chunkSize);
+			if (chunk.isEmpty()) {
+				break;
+			}
+			cancelChunk(chunk, result);
+			if (chunk.size() < chunkSize) {
+				break;
+			}
+			afterId = chunk.get(chunk.size() - 1);
+		}
+		return result;
+	}
+
+	/**
+	 * chunk 하나를 한 트랜잭션으로 취소하고 결과에 더한다.
+	 * - 실패하면 chunk 전체를 failedIds 에 담는다. (롤백되었으므로 다시 요청하면 된다.)
+	 */
+	private void cancelChunk(List<Long> chunk, BulkCancelResult result) {
+		result.requested += chunk.size();
+		
+		List<Long> canceledIds;
+		try {
+			canceledIds = transactionTemplate.execute(status -> lockAndCancel(chunk));
+		} catch (RuntimeException e) {
+			log.warn("주문 취소 chunk 실패 : {}건", chunk.size(), e);
+			em.clear();
+			result.failedIds.addAll(chunk);
+			return;
+		}
+		
+		result.canceled += canceledIds.size();
+		Set<Long> done = new HashSet<>(canceledIds);
+		for (Long id : chunk) {
+			if (!done.contains(id)) {
+				result.skippedIds.add(id);
+			}
+		}
+	}
+
+	private List<Long> lockAndCancel(List<Long> orderIds) {
+		List<Long> cancelable = orderRepository.lockCancelableIds(orderIds);
+		if (cancelable.isEmpty()) {
+			return cancelable;
+		}
+		
+		orderRepository.markCanceled(cancelable);
+		Map<Long, Integer> counts = orderRepository.sumOrderCountByItem(cancelable);
+		counts.forEach(stockManager::release);
+		
+		for (Long orderId : cancelable) {
+			eventPublisher.publishEvent(new OrderChangedEvent(orderId));
+		}
+		
+		em.clear();
+		return cancelable;
+	}
+
+	/**
+	 * 취소 결과
+	 * - skippedIds : 취소할 수 없는 주문 (배송 완료, 이미 취소, 없는 주문)
+	 * - failedIds : 저장 실패로 취소하지 못한 주문 (chunk 롤백)
+	 */
+	@Getter
+	public static class BulkCancelResult {
+		private int requested;
+		private int canceled;
+		private final List<Long> skippedIds = new ArrayList<>();
+		private final List<Long> failedIds = new ArrayList<>();
+	}
+}
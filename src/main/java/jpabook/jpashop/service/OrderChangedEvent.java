@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 주문 변경 이벤트
+ * - 주문 생성, 주문 취소 시 OrderService 에서 발행한다.
+ * - 캐시 무효화 같은 후처리는 @TransactionalEventListener(AFTER_COMMIT) 로 받아야 롤백된 변경에 반응하지 않는다.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderChangedEvent {
+	private final Long orderId;
+}
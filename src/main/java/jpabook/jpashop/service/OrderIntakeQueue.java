@@ -0,0 +1,226 @@
+package jpabook.jpashop.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.OrderIntakeRejectedException;
+import jpabook.jpashop.exception.OrderOutcomeUnknownException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 주문 접수 대기열 (그룹 커밋)
+ * 
+ 	· 주문마다 트랜잭션을 커밋하면 커밋 시간(로그 쓰기)이 처리량의 상한이 된다.
+ 	· 주문 요청을 대기열에 넣고, 전용 스레드(writer)가 모아서 한 트랜잭션으로 저장한다. (OrderBatchService.placeInOneTransaction)
+ 		· max-group-size 만큼 모이거나, 첫 주문 이후 window 가 지나면 저장한다.
+ 		· 주문별 결과로 요청자의 CompletableFuture 를 완료한다. (성공 : 주문 id, 실패 : 원인 예외 그대로. 예) NotEnoughStockException)
+ 	· 대기열이 가득 차면 offer-timeout 만큼 기다린 후 OrderIntakeRejectedException(503) 으로 거절한다. (backpressure)
+ 	· 메트릭
+ 		· jpashop.order.intake.group.size : 한번에 커밋한 주문 수
+ 		· jpashop.order.intake.queue.wait : 접수부터 저장 시작까지 대기 시간
+ 		· jpashop.order.intake.queue.size : 현재 대기열 크기
+ 		· jpashop.order.intake.rejected : 거절 수
+ 	
+ 	※ 참고
+ 		· jpashop.order.intake.enabled=true 인 경우에만 등록된다. (OrderController.order)
+ 		· 그룹 중 일부 주문이 실패해도(재고 부족 등) 나머지는 커밋된다.
+ 		· 커밋 자체가 실패하면 저장 여부를 알 수 없으므로 그룹 전체를 OrderOutcomeUnknownException(202) 으로 완료한다. (OrderBatchService.placeChunk)
+ 		· 종료 시 대기열에 남은 주문은 저장하고 종료한다.
+ 		· result-timeout 안에 결과를 받지 못하면 OrderOutcomeUnknownException(202) 을 던진다. 주문은 나중에 저장될 수 있으므로 실패로 처리하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order.intake.enabled", havingValue = "true")
+public class OrderIntakeQueue {
+
+	private final OrderBatchService orderBatchService;
+	private final BlockingQueue<PendingOrder> queue;
+	private final int maxGroupSize;
+	private final long windowNanos;
+	private final Duration offerTimeout;
+	private final Duration resultTimeout;
+
+	private final DistributionSummary groupSize;
+	private final Timer queueWait;
+	private final Counter rejected;
+
+	private volatile boolean running;
+	private Thread writer;
+
+	public OrderIntakeQueue(OrderBatchService orderBatchService, MeterRegistry meterRegistry,
+			@Value("${jpashop.order.intake.capacity:10000}") int capacity,
+			@Value("${jpashop.order.intake.max-group-size:200}") int maxGroupSize,
+			@Value("${jpashop.order.intake.window:5ms}") Duration window,
+			@Value("${jpashop.order.intake.offer-timeout:100ms}") Duration offerTimeout,
+			@Value("${jpashop.order.intake.result-timeout:30s}") Duration resultTimeout) {
+		this.orderBatchService = orderBatchService;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.maxGroupSize = maxGroupSize;
+		this.windowNanos = window.toNanos();
+		this.offerTimeout = offerTimeout;
+		this.resultTimeout = resultTimeout;
+		
+		this.groupSize = DistributionSummary.builder("jpashop.order.intake.group.size").register(meterRegistry);
+		this.queueWait = Timer.builder("jpashop.order.intake.queue.wait").register(meterRegistry);
+		this.rejected = meterRegistry.counter("jpashop.order.intake.rejected");
+		meterRegistry.gaugeCollectionSize("jpashop.order.intake.queue.size", List.of(), queue);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		writer = new Thread(this::run, "order-intake-writer");
+		writer.start();
+	}
+
+	/**
+	 * writer 를 interrupt 하지 않는다. JDBC 작업 중에 interrupt 되면 커넥션이 닫힐 수 있다. (poll 이 1초마다 running 을 확인한다.)
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		writer.join(TimeUnit.SECONDS.toMillis(30));
+	}
+
+	/**
+	 * 주문 접수
+	 * @return 저장되면 주문 id 로 완료된다.
+	 * @throws OrderIntakeRejectedException 대기열이 가득 찬 경우
+	 */
+	public CompletableFuture<Long> submit(Long memberId, Long itemId, int count) {
+		PendingOrder pending = new PendingOrder(new OrderRequest(memberId, List.of(new OrderLine(itemId, count))));
+		
+		boolean accepted;
+		try {
+			accepted = running && queue.offer(pending, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			accepted = false;
+		}
+		
+		if (!accepted) {
+			rejected.increment();
+			throw new OrderIntakeRejectedException("주문 접수 대기열이 가득 찼습니다. 잠시 후 다시 시도해 주세요.");
+		}
+		return pending.result;
+	}
+
+	/**
+	 * 주문 접수 후 저장될 때까지 대기 (OrderService.order 와 같은 방식으로 사용)
+	 * @throws OrderOutcomeUnknownException 접수는 되었지만 결과를 기다리지 못한 경우 (시간 초과, 중단)
+	 */
+	public Long order(Long memberId, Long itemId, int count) {
+		try {
+			return submit(memberId, itemId, count).get(resultTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OrderOutcomeUnknownException("주문이 접수되었지만 처리 결과를 기다리는 중 중단되었습니다. 주문 목록에서 확인해 주세요.", e);
+		} catch (TimeoutException e) {
+			throw new OrderOutcomeUnknownException("주문이 접수되었지만 처리 시간이 초과되었습니다. 주문 목록에서 확인해 주세요.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new CompletionException(e.getCause());
+		}
+	}
+
+	private void run() {
+		List<PendingOrder> group = new ArrayList<>(maxGroupSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				collect(group);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+				queue.drainTo(group, maxGroupSize - group.size());
+			}
+			
+			if (!group.isEmpty()) {
+				commit(group);
+				group.clear();
+			}
+		}
+	}
+
+	/**
+	 * 첫 주문을 기다린 후 max-group-size 가 되거나 window 가 지날 때까지 모은다.
+	 */
+	private void collect(List<PendingOrder> group) throws InterruptedException {
+		PendingOrder first = queue.poll(1, TimeUnit.SECONDS);
+		if (first == null) {
+			return;
+		}
+		group.add(first);
+		
+		long deadline = System.nanoTime() + windowNanos;
+		while (group.size() < maxGroupSize) {
+			queue.drainTo(group, maxGroupSize - group.size());
+			long remaining = deadline - System.nanoTime();
+			if (group.size() >= maxGroupSize || remaining <= 0) {
+				break;
+			}
+			PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				break;
+			}
+			group.add(next);
+		}
+	}
+
+	private void commit(List<PendingOrder> group) {
+		long now = System.nanoTime();
+		List<OrderRequest> requests = new ArrayList<>(group.size());
+		for (PendingOrder pending : group) {
+			queueWait.record(now - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+			requests.add(pending.request);
+		}
+		groupSize.record(group.size());
+		
+		try {
+			List<OrderResult> results = orderBatchService.placeInOneTransaction(requests);
+			for (OrderResult result : results) {
+				CompletableFuture<Long> future = group.get(result.getIndex()).result;
+				if (result.isSuccess()) {
+					future.complete(result.getOrderId());
+				} else {
+					future.completeExceptionally(result.getError());
+				}
+			}
+		} catch (RuntimeException e) {
+			// 커밋 이후에 실패했을 수도 있으므로 실패로 단정하지 않는다.
+			log.error("주문 그룹 저장 결과 확인 불가 : {}건", group.size(), e);
+			for (PendingOrder pending : group) {
+				pending.result.completeExceptionally(new OrderOutcomeUnknownException("주문이 접수되었지만 처리 결과를 확인할 수 없습니다. 주문 목록에서 확인해 주세요.", e));
+			}
+		}
+	}
+
+	private static class PendingOrder {
+		private final OrderRequest request;
+		private final long enqueuedNanos = System.nanoTime();
+		private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+		PendingOrder(OrderRequest request) {
+			this.request = request;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 주문 상품 요청 (상품 식별자, 주문 수량)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+	private Long itemId;
+	private int count;
+}
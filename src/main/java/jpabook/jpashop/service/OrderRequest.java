@@ -0,0 +1,25 @@
+package jpabook.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 주문 요청 (회원 식별자, 주문 상품 목록)
+ * - 주문 상품은 최대 MAX_ITEMS 개 (대량 주문 API 요청 크기 제한)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRequest {
+
+	public static final int MAX_ITEMS = 100;
+
+	private Long memberId;
+	@Size(max = MAX_ITEMS, message = "주문 상품은 최대 " + MAX_ITEMS + "개 입니다.")
+	private List<OrderLine> items = new ArrayList<>();
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 주문 요청별 처리 결과
+ * - index : 요청 목록에서의 순서 (0부터)
+ * - 실패한 경우 orderId 는 null, message 에 사유
+ * - error : 실패 원인 예외 (NotEnoughStockException 등). 응답에는 담지 않고 OrderIntakeQueue 가 그대로 던진다.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderResult {
+
+	private final int index;
+	private final Long orderId;
+	private final boolean success;
+	private final String message;
+	@JsonIgnore
+	private final RuntimeException error;
+
+	public static OrderResult success(int index, Long orderId) {
+		return new OrderResult(index, orderId, true, null, null);
+	}
+
+	public static OrderResult failure(int index, RuntimeException error) {
+		return failure(index, error.getMessage(), error);
+	}
+
+	public static OrderResult failure(int index, String message, RuntimeException error) {
+		return new OrderResult(index, null, false, message, error);
+	}
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop.service;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +16,7 @@ import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.stock.StockManager;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -25,6 +27,8 @@ public class OrderService {
 	private final OrderRepository orderRepository;
 	private final MemberRepository memberRepository;
 	private final ItemRepository itemRepository;
+	private final StockManager stockManager;
+	private final ApplicationEventPublisher eventPublisher;
 	
 	
 	/**
@@ -43,7 +47,19 @@ public class OrderService {
 		
 		// 엔티티조회
 		Member member = memberRepository.findOne(memberId);
-		Item iItem = itemRepository.findOne(ItemId);
+		Integer price = itemRepository.findPrice(ItemId);
+		if (price == null) {
+			throw new IllegalArgumentException("상품이 존재하지 않습니다. itemId=" + ItemId);
+		}
+		
+		/**
+		 * 재고 차감
+		 * - 상품 엔티티를 조회하지 않고 차감한다. 재고가 부족하면 NotEnoughStockException
+		 * - 동시에 주문해도 재고 이상으로 팔리지 않는다.
+		 * - 기본은 조건부 update 한번 (ItemRepository.removeStock), 메모리 원장 사용 시 StockLedger (jpashop.stock.ledger.enabled)
+		 */
+		stockManager.reserve(ItemId, orderCount);
+		Item iItem = itemRepository.getReference(ItemId);
 		
 		// 배송정보 생성
 		Delivery delivery = new Delivery();
@@ -66,7 +82,7 @@ public class OrderService {
 			- 1번과 2번은 같은 의미
 		 * 
 		 */
-		OrderItem orderItem = OrderItem.creatOrderITem(iItem, iItem.getPrice(), orderCount);
+		OrderItem orderItem = OrderItem.createReservedOrderItem(iItem, price, orderCount);
 		 
 		// 주문 정보 생성
 		Order order = Order.createOrder(member, delivery, orderItem);
@@ -77,6 +93,9 @@ public class OrderService {
 		 */ 
 		orderRepository.save(order);
 		
+		// 주문 변경 이벤트 (커밋 이후 캐시 무효화)
+		eventPublisher.publishEvent(new OrderChangedEvent(order.getId()));
+		
 		return order.getId();
 	}
 	
@@ -99,18 +118,22 @@ public class OrderService {
 		
 		/**
 		 *  주문 취소
-		 *  - 더티체킹(변경내역감지)을 통해 JPA가 알아서 Order 와 Item 의 업데이트 쿼리가 DB에 날라간다.
+		 *  - 더티체킹(변경내역감지)을 통해 JPA가 알아서 Order 의 업데이트 쿼리가 DB에 날라간다.
+		 *  - 재고는 상품을 조회하지 않고 StockManager 로 원복한다. (주문과 같은 이유로 변경감지를 사용하지 않는다.)
 		 */
-		order.cancel();
+		order.cancel(stockManager);
 		
+		// 주문 변경 이벤트 (커밋 이후 캐시 무효화)
+		eventPublisher.publishEvent(new OrderChangedEvent(orderId));
 	}
 	
 	
 	/**
 	 *  검색
+	 *  - 회원명은 부분 일치로 검색한다. (트라이그램 인덱스 사용, OrderRepository.findAllByCriteria)
 	 */
 	public List<Order> findOrders(OrderSearch orderSearch){
-		return orderRepository.findAllByString(orderSearch);
+		return orderRepository.findAllByCriteria(orderSearch);
 	}
 	
 }
@@ -0,0 +1,24 @@
+package jpabook.jpashop.service.stock;
+
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * DB 재고를 바로 변경 (ItemRepository.removeStock, addStock)
+ * - 현재 트랜잭션에서 실행되므로 롤백되면 같이 롤백된다.
+ */
+@RequiredArgsConstructor
+public class DatabaseStockManager implements StockManager {
+
+	private final ItemRepository itemRepository;
+
+	@Override
+	public void reserve(Long itemId, int quantity) {
+		itemRepository.removeStock(itemId, quantity);
+	}
+
+	@Override
+	public void release(Long itemId, int quantity) {
+		itemRepository.addStock(itemId, quantity);
+	}
+}
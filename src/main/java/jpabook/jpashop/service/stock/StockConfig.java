@@ -0,0 +1,45 @@
+package jpabook.jpashop.service.stock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.repository.ItemRepository;
+
+/**
+ * 재고 관리 방식 선택
+ * - jpashop.stock.ledger.enabled=true : StockLedger (메모리 원장 + 주기적 DB 반영)
+ * - 그 외 : DatabaseStockManager (조건부 update)
+ */
+@Configuration
+public class StockConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "jpashop.stock.ledger.enabled", havingValue = "false", matchIfMissing = true)
+	public StockManager databaseStockManager(ItemRepository itemRepository) {
+		return new DatabaseStockManager(itemRepository);
+	}
+
+	@Configuration
+	@EnableScheduling
+	@ConditionalOnProperty(name = "jpashop.stock.ledger.enabled", havingValue = "true")
+	static class StockLedgerConfig {
+
+		/**
+		 * stripes : 상품별 카운터 칸 수 (기본값 CPU 수)
+		 */
+		@Bean
+		public StockLedger stockLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, 
+				EntityManagerFactory emf, MeterRegistry meterRegistry,
+				@Value("${jpashop.stock.ledger.stripes:0}") int stripes) {
+			int stripeCount = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+			return new StockLedger(jdbcTemplate, transactionManager, emf, meterRegistry, stripeCount);
+		}
+	}
+}
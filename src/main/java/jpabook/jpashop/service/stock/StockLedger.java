@@ -0,0 +1,212 @@
+package jpabook.jpashop.service.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.service.ItemChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 메모리 재고 원장 (write-behind)
+ * 
+ 	· 주문 시 DB 가 아니라 메모리 카운터(StripedStockCounter)에서 재고를 차감한다. 인기 상품의 같은 행에 update 가 몰리지 않는다.
+ 	· 차감/원복한 수량은 상품별로 모아두었다가(pending) flush-interval 마다 한번에 DB 에 반영한다. (JDBC 배치 update)
+ 	· 기동 시(ApplicationReadyEvent) DB 재고로 원장을 만든다. 원장에 없는 상품은 처음 주문할 때 DB 에서 읽는다.
+ 	· 트랜잭션
+ 		· reserve : 바로 차감하고, 트랜잭션이 롤백되면 되돌린다.
+ 		· release : 커밋된 후에 원복한다. (취소가 롤백되면 원복하지 않는다.)
+ 	· 상품 수정(ItemChangedEvent) 시 관리자가 입력한 재고가 기준이므로 해당 상품은 DB 값으로 다시 읽는다. (반영 전 pending 은 버린다.)
+ 		· 상품별 카운터와 pending 은 한 묶음(ItemStock)으로 교체한다. 
+ 		  수정 전에 차감한 주문이 나중에 롤백되면 차감했던 묶음(이전 카운터)에 되돌리므로 새 카운터는 바뀌지 않는다.
+ 		· flush 와 다시 읽기는 동시에 실행하지 않는다. 
+ 		  flush 가 꺼낸 수량은 DB 에 반영된 후에 다시 읽으므로, 수정 커밋 후에 반영되더라도 새 카운터와 DB 가 같은 값에서 시작한다.
+ 	
+ 	※ 참고
+ 		· DB 의 item.stock_quantity 는 최대 flush-interval 만큼 늦게 반영된다. (상품 목록 화면의 재고)
+ 		· 애플리케이션이 한대일 때만 사용할 수 있다. 여러 대면 서로의 원장을 모른다.
+ 		· 비정상 종료 시 반영되지 않은 pending 은 유실된다. 정상 종료 시에는 마지막으로 flush 한다.
+ */
+@Slf4j
+public class StockLedger implements StockManager {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final EntityManagerFactory emf;
+	private final Timer flushTimer;
+	private final int stripes;
+
+	private final Map<Long, ItemStock> stocks = new ConcurrentHashMap<>();
+
+	public StockLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, EntityManagerFactory emf,
+			MeterRegistry meterRegistry, int stripes) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.emf = emf;
+		this.flushTimer = meterRegistry.timer("jpashop.stock.ledger.flush");
+		this.stripes = stripes;
+	}
+
+	/**
+	 * DB 재고로 원장 생성
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void rebuild() {
+		stocks.clear();
+		jdbcTemplate.query("select item_id, stock_quantity from item", rs -> {
+			stocks.put(rs.getLong(1), new ItemStock(new StripedStockCounter(stripes, rs.getInt(2))));
+		});
+		log.info("재고 원장 생성 : 상품 {}건", stocks.size());
+	}
+
+	@Override
+	public void reserve(Long itemId, int quantity) {
+		ItemStock stock = stock(itemId);
+		if (!stock.counter.tryAcquire(quantity)) {
+			throw new NotEnoughStockException("need more stock");
+		}
+		stock.pending.add(quantity);
+		
+		// 롤백되면 차감한 묶음에 되돌린다. (그 사이 상품이 수정되어 교체되었으면 새 카운터에는 영향이 없다.)
+		afterCompletion(status -> {
+			if (status != TransactionSynchronization.STATUS_COMMITTED) {
+				stock.counter.release(quantity);
+				stock.pending.add(-quantity);
+			}
+		});
+	}
+
+	@Override
+	public void release(Long itemId, int quantity) {
+		afterCompletion(status -> {
+			if (status == TransactionSynchronization.STATUS_COMMITTED) {
+				ItemStock stock = stock(itemId);
+				stock.counter.release(quantity);
+				stock.pending.add(-quantity);
+			}
+		});
+	}
+
+	/**
+	 * 현재 원장 재고
+	 */
+	public int available(Long itemId) {
+		return stock(itemId).counter.available();
+	}
+
+	/**
+	 * pending 을 DB 에 반영
+	 * - 반영 중 실패하면 꺼낸 수량을 pending 에 되돌려서 다음 주기에 다시 반영한다.
+	 * - 반영한 상품은 2차 캐시에서 제거한다. (update 를 JPA 밖에서 실행하므로 하이버네이트가 모른다.)
+	 * - 상품 수정 후 다시 읽기(onItemChanged)와 동시에 실행하지 않는다.
+	 */
+	@Scheduled(fixedDelayString = "${jpashop.stock.ledger.flush-interval:200ms}")
+	public synchronized void flush() {
+		List<Object[]> updates = new ArrayList<>();
+		List<ItemStock> flushed = new ArrayList<>();
+		for (Map.Entry<Long, ItemStock> entry : stocks.entrySet()) {
+			long delta = entry.getValue().pending.sumThenReset();
+			if (delta != 0) {
+				updates.add(new Object[] {delta, entry.getKey()});
+				flushed.add(entry.getValue());
+			}
+		}
+		if (updates.isEmpty()) {
+			return;
+		}
+		
+		try {
+			flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> 
+				jdbcTemplate.batchUpdate("update item set stock_quantity = stock_quantity - ? where item_id = ?", updates)));
+		} catch (RuntimeException e) {
+			log.warn("재고 원장 반영 실패 : 상품 {}건, 다음 주기에 다시 반영합니다.", updates.size(), e);
+			for (int i = 0; i < updates.size(); i++) {
+				flushed.get(i).pending.add((Long) updates.get(i)[0]);
+			}
+			return;
+		}
+		
+		for (Object[] update : updates) {
+			emf.getCache().evict(Item.class, update[1]);
+		}
+	}
+
+	/**
+	 * 상품 등록/수정 커밋 후 DB 값으로 다시 읽는다.
+	 * - 진행 중인 flush 가 끝난 후 읽고, 카운터와 pending 을 함께 교체한다.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public synchronized void onItemChanged(ItemChangedEvent event) {
+		stocks.put(event.getItemId(), load(event.getItemId()));
+	}
+
+	@PreDestroy
+	public void close() {
+		flush();
+	}
+
+	private ItemStock stock(Long itemId) {
+		return stocks.computeIfAbsent(itemId, this::load);
+	}
+
+	private ItemStock load(Long itemId) {
+		List<Integer> stock = jdbcTemplate.queryForList("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+		if (stock.isEmpty()) {
+			throw new IllegalArgumentException("상품이 존재하지 않습니다. itemId=" + itemId);
+		}
+		return new ItemStock(new StripedStockCounter(stripes, stock.get(0)));
+	}
+
+	/**
+	 * 트랜잭션 종료 후 실행. 트랜잭션 밖이면 바로 커밋된 것으로 보고 실행한다.
+	 */
+	private void afterCompletion(CompletionCallback callback) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			callback.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				callback.afterCompletion(status);
+			}
+		});
+	}
+
+	/**
+	 * 상품 하나의 원장 (카운터 + DB 에 반영할 차감 수량)
+	 * - 상품 수정 시 통째로 교체한다.
+	 */
+	private static final class ItemStock {
+		private final StripedStockCounter counter;
+		private final LongAdder pending = new LongAdder();	// DB 에 반영할 차감 수량 (원복은 음수)
+
+		ItemStock(StripedStockCounter counter) {
+			this.counter = counter;
+		}
+	}
+
+	@FunctionalInterface
+	private interface CompletionCallback {
+		void afterCompletion(int status);
+	}
+}
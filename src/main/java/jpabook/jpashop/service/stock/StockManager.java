@@ -0,0 +1,22 @@
+package jpabook.jpashop.service.stock;
+
+/**
+ * 재고 차감/원복
+ * 
+ 	· DatabaseStockManager : 조건부 update 로 DB 재고를 바로 변경한다. (기본)
+ 	· StockLedger : 메모리에서 차감하고 DB 에는 주기적으로 모아서 반영한다. (jpashop.stock.ledger.enabled=true)
+ */
+public interface StockManager {
+
+	/**
+	 * 재고 차감
+	 * - 재고가 부족하면 NotEnoughStockException
+	 * - 트랜잭션이 롤백되면 차감한 재고도 원복되어야 한다.
+	 */
+	void reserve(Long itemId, int quantity);
+
+	/**
+	 * 재고 원복 (주문 취소)
+	 */
+	void release(Long itemId, int quantity);
+}
@@ -0,0 +1,108 @@
+package jpabook.jpashop.service.stock;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 상품 하나의 재고 카운터
+ * 
+ 	· 재고를 여러 칸(stripe)에 나눠 담는다. 스레드마다 다른 칸에서 CAS 로 차감하므로 인기 상품에 주문이 몰려도 경합이 분산된다.
+ 	· 락을 사용하지 않는다. (compareAndSet 재시도)
+ 	· 내 칸이 부족하면 다른 칸을 차례로 확인하고, 그래도 한 칸에 충분한 재고가 없으면 여러 칸에서 나눠서 가져온다.
+ 	
+ 	※ 참고
+ 		· 칸 사이에 STRIDE 만큼 간격을 둔다. 인접한 칸이 같은 CPU 캐시 라인(64 byte)에 있으면 서로 무효화시킨다. (false sharing)
+ */
+class StripedStockCounter {
+
+	private static final int STRIDE = 16;	// int 16개 = 64 byte
+
+	private final int stripes;
+	private final AtomicIntegerArray cells;
+
+	StripedStockCounter(int stripes, int stock) {
+		this.stripes = stripes;
+		this.cells = new AtomicIntegerArray(stripes * STRIDE);
+		
+		int share = stock / stripes;
+		for (int i = 0; i < stripes; i++) {
+			cells.set(i * STRIDE, share);
+		}
+		cells.addAndGet(0, stock - share * stripes);
+	}
+
+	/**
+	 * 재고 차감
+	 * @return 재고가 부족하면 false (차감하지 않음)
+	 */
+	boolean tryAcquire(int quantity) {
+		int home = home();
+		for (int n = 0; n < stripes; n++) {
+			if (tryAcquire((home + n) % stripes, quantity)) {
+				return true;
+			}
+		}
+		return acquireAcross(quantity);
+	}
+
+	/**
+	 * 재고 증가
+	 */
+	void release(int quantity) {
+		cells.addAndGet(home() * STRIDE, quantity);
+	}
+
+	/**
+	 * 전체 재고 (다른 스레드가 변경중이면 근사값)
+	 */
+	int available() {
+		int sum = 0;
+		for (int i = 0; i < stripes; i++) {
+			sum += cells.get(i * STRIDE);
+		}
+		return sum;
+	}
+
+	private boolean tryAcquire(int stripe, int quantity) {
+		int index = stripe * STRIDE;
+		while (true) {
+			int current = cells.get(index);
+			if (current < quantity) {
+				return false;
+			}
+			if (cells.compareAndSet(index, current, current - quantity)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 여러 칸에서 나눠서 차감. 전부 모으지 못하면 가져온 만큼 되돌린다.
+	 */
+	private boolean acquireAcross(int quantity) {
+		int remaining = quantity;
+		for (int i = 0; i < stripes && remaining > 0; i++) {
+			int index = i * STRIDE;
+			while (true) {
+				int current = cells.get(index);
+				int take = Math.min(current, remaining);
+				if (take <= 0) {
+					break;
+				}
+				if (cells.compareAndSet(index, current, current - take)) {
+					remaining -= take;
+					break;
+				}
+			}
+		}
+		
+		if (remaining > 0) {
+			release(quantity - remaining);
+			return false;
+		}
+		return true;
+	}
+
+	private int home() {
+		return (int) (Thread.currentThread().getId() % stripes);
+	}
+}
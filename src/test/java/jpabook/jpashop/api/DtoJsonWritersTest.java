@@ -0,0 +1,88 @@
+package jpabook.jpashop.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+
+import jpabook.jpashop.api.MemberApiController.MemberDTO;
+import jpabook.jpashop.api.MemberApiController.Result;
+import jpabook.jpashop.api.OrderApiController.CursorResult;
+import jpabook.jpashop.api.OrderApiController.OrderDTO;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDTO;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDTO;
+
+/**
+ * 전용 JSON 작성기(DtoJsonWriters) 결과가 Jackson databind 결과와 같은지 확인
+ * - ObjectMapper 는 스프링 부트와 같은 설정(Jackson2ObjectMapperBuilder + Hibernate5JakartaModule)으로 만든다.
+ */
+class DtoJsonWritersTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+			.modulesToInstall(new Hibernate5JakartaModule())
+			.build();
+
+	@Test
+	void 주문DTO_databind와_같음() throws Exception {
+		Member member = new Member();
+		member.setName("회원1");
+		member.setAddress(new Address("서울", "강남", "12345"));
+		
+		Delivery delivery = new Delivery();
+		delivery.setAddress(member.getAddress());
+		
+		Book book = new Book();
+		book.setName("JPA BOOK");
+		
+		Order order = Order.createOrder(member, delivery, OrderItem.createReservedOrderItem(book, 10000, 2));
+		
+		assertSameJson(List.of(new OrderDTO(order)));
+		assertSameJson(new CursorResult<>(1, "abc", List.of(new OrderDTO(order))));
+		assertSameJson(new CursorResult<>(0, null, List.of()));
+	}
+
+	@Test
+	void 주문조회DTO_databind와_같음() throws Exception {
+		LocalDateTime orderDate = LocalDateTime.of(2023, 4, 1, 12, 30, 0, 123456000);
+		Address address = new Address("서울", "강남", "12345");
+		
+		OrderQueryDTO order = new OrderQueryDTO(1L, "회원1", orderDate, OrderStatus.ORDER, address,
+				List.of(new OrderItemQueryDto(1L, "JPA BOOK", 10000, 2), new OrderItemQueryDto(1L, "\"따옴표\" 책", 20000, 1)));
+		OrderQueryDTO withoutItems = new OrderQueryDTO(2L, null, LocalDateTime.of(2023, 4, 1, 0, 0), OrderStatus.CANCEL, null);
+		
+		assertSameJson(List.of(order, withoutItems));
+		assertSameJson(List.of(new OrderSimpleQueryDTO(1L, "회원1", orderDate, OrderStatus.ORDER, address)));
+	}
+
+	@Test
+	void 회원DTO_databind와_같음() throws Exception {
+		List<MemberDTO> members = List.of(new MemberDTO("회원1", "서울", "강남", "12345"), new MemberDTO("회원2", null, null, null));
+		
+		assertSameJson(new Result<>(members.size(), members));
+	}
+
+	private void assertSameJson(Object value) throws Exception {
+		StringWriter out = new StringWriter();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			DtoJsonWriters.writeValue(generator, value);
+		}
+		
+		assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(value)), objectMapper.readTree(out.toString()));
+	}
+}
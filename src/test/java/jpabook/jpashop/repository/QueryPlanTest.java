@@ -0,0 +1,279 @@
+package jpabook.jpashop.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.RequestSqlStats;
+import jpabook.jpashop.repository.order.query.OrderField;
+import jpabook.jpashop.repository.order.query.OrderProjectionRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleRepository;
+
+/**
+ * 실행계획(EXPLAIN) 회귀 테스트
+ * 
+ 	· 리포지토리 메소드를 실행하면서 하이버네이트가 만든 SQL 을 모은다. (RequestSqlStats)
+ 	· 모은 select 마다 H2 EXPLAIN 을 실행해서 테이블 스캔(/* PUBLIC.XXX.tableScan *\/)을 찾는다.
+ 	· 조건이 있는 조회는 테이블 스캔이 없어야 한다. 
+ 	  전체 목록 조회, like '%..%' 검색처럼 원래 한 테이블은 읽어야 하는 조회는 (시작) 테이블 1개까지 허용한다.
+ 	  PK 순(order by o.id)으로 읽는 조회는 H2 가 PK 인덱스로 읽으므로 전체 목록이어도 0 이다. (조회마다 만족할 수 있는 가장 작은 값)
+ 	· 인덱스(@Table indexes)가 빠지거나 쿼리가 바뀌어서 스캔이 생기면 실행계획과 함께 실패한다.
+ 	· 테이블이 비어 있으면 H2 가 스캔을 고를 수 있으므로 테스트 데이터를 먼저 넣는다. (커밋된다.)
+ */
+@SpringBootTest
+class QueryPlanTest {
+
+	private static final int MEMBERS = 300;
+	private static final int ITEMS = 300;
+	private static final int ORDERS = 1000;
+	private static final int CATEGORIES = 10;
+
+	private static final Pattern TABLE_SCAN = Pattern.compile("/\\*\\s*([\\w.\"]+)\\.tableScan\\b");
+
+	@Autowired OrderRepository orderRepository;
+	@Autowired OrderQueryRepository orderQueryRepository;
+	@Autowired OrderProjectionRepository orderProjectionRepository;
+	@Autowired OrderSimpleRepository orderSimpleRepository;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberNameIndex memberNameIndex;
+	@Autowired CategoryRepository categoryRepository;
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired JdbcTemplate jdbcTemplate;
+	@Autowired PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate tx;
+	private final List<String> failures = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		
+		Integer seeded = jdbcTemplate.queryForObject("select count(*) from member where name = 'plan-member-1'", Integer.class);
+		if (seeded == 0) {
+			seed();
+		}
+		jdbcTemplate.execute("analyze");
+		memberNameIndex.load();
+	}
+
+	@Test
+	void 리포지토리_쿼리_테이블스캔_없음() {
+		OrderSearch byStatus = new OrderSearch();
+		byStatus.setOrderStatus(OrderStatus.ORDER);
+		
+		OrderSearch byName = new OrderSearch();
+		byName.setMemberName("plan-member-12");
+		
+		List<Long> orderIds = jdbcTemplate.queryForList("select order_id from orders order by order_id fetch first 10 rows only", Long.class);
+		List<Long> memberIds = jdbcTemplate.queryForList("select member_id from member order by member_id fetch first 10 rows only", Long.class);
+		
+		// OrderRepository
+		check("OrderRepository.findAllByString(status)", 0, () -> orderRepository.findAllByString(byStatus));
+		check("OrderRepository.findAllByString(name)", 1, () -> orderRepository.findAllByString(byName));
+		check("OrderRepository.findAllByCriteria(name)", 0, () -> orderRepository.findAllByCriteria(byName));
+		check("OrderRepository.findAllWithMemberDelivery()", 0, () -> orderRepository.findAllWithMemberDelivery());
+		check("OrderRepository.findAllWithMemberDelivery(offset, limit)", 0, () -> orderRepository.findAllWithMemberDelivery(0, 100));
+		check("OrderRepository.findAllWithItem", 1, () -> orderRepository.findAllWithItem());
+		check("OrderRepository.findAllWithMemberDeliveryAfter(cursor)", 0, () -> orderRepository.findAllWithMemberDeliveryAfter(orderIds.get(5), 100));
+		check("OrderRepository.findCancelableIds(status)", 0, () -> orderRepository.findCancelableIds(byStatus, orderIds.get(5), 100));
+		check("OrderRepository.lockCancelableIds", 0, () -> orderRepository.lockCancelableIds(orderIds));
+		check("OrderRepository.sumOrderCountByItem", 0, () -> orderRepository.sumOrderCountByItem(orderIds));
+		check("OrderRepository.findOne + orderItems", 0, () -> orderRepository.findOne(orderIds.get(0)).getOrderItems().size());
+		
+		// OrderQueryRepository
+		check("OrderQueryRepository.findOrderQueryDTO", 1, () -> orderQueryRepository.findOrderQueryDTO());
+		check("OrderQueryRepository.findAllByDTO_optimization", 1, () -> orderQueryRepository.findAllByDTO_optimization());
+		check("OrderQueryRepository.findAllByDTO_sequential", 1, () -> orderQueryRepository.findAllByDTO_sequential());
+		check("OrderQueryRepository.findAllByDTO_pipelined", 0, () -> orderQueryRepository.findAllByDTO_pipelined(100));
+		check("OrderQueryRepository.findAllByDTO_flat", 1, () -> orderQueryRepository.findAllByDTO_flat());
+		check("OrderQueryRepository.streamAllByDTO_flat", 0, () -> orderQueryRepository.streamAllByDTO_flat(dto -> {}));
+		
+		// OrderProjectionRepository
+		check("OrderProjectionRepository.findOrders(id,status)", 1, () -> orderProjectionRepository.findOrders(OrderField.parse("id,status"), 0, 1000));
+		check("OrderProjectionRepository.findOrders(name,orderItems)", 1, () -> orderProjectionRepository.findOrders(OrderField.parse("name,orderItems"), 0, 1000));
+		
+		// OrderSimpleRepository
+		check("OrderSimpleRepository.findOrderDTOs", 1, () -> orderSimpleRepository.findOrderDTOs());
+		
+		// MemberRepository
+		check("MemberRepository.findAll", 1, () -> memberRepository.findAll());
+		check("MemberRepository.findAllStateless", 1, () -> memberRepository.findAllStateless());
+		check("MemberRepository.findAllById", 0, () -> memberRepository.findAllById(memberIds));
+		check("MemberRepository.findByName", 0, () -> memberRepository.findByName("plan-member-1"));
+		check("MemberRepository.existsByName", 0, () -> memberRepository.existsByName("plan-member-1"));
+		
+		// CategoryRepository
+		Map<String, Object> category = jdbcTemplate.queryForMap("select category_id, path from category where name = 'plan-category-1'");
+		Long categoryId = ((Number) category.get("category_id")).longValue();
+		String subtreePath = category.get("path") + String.valueOf(categoryId) + "/";
+		check("CategoryRepository.findItemsInSubtree", 0, () -> categoryRepository.findItemsInSubtree(categoryId, subtreePath, 0, 100));
+		
+		if (!failures.isEmpty()) {
+			fail("테이블 스캔 발견\n\n" + String.join("\n\n", failures));
+		}
+	}
+
+	/**
+	 * 리포지토리 메소드를 실행해서 SQL 을 모으고, select 마다 실행계획을 확인한다.
+	 * 
+	 * @param maxTableScans 허용하는 테이블 스캔 수 (조건이 있는 조회는 0, 전체 목록 / like '%..%' 는 1)
+	 */
+	private void check(String name, int maxTableScans, Runnable query) {
+		// 2차 캐시, 쿼리 캐시에서 가져오면 SQL 이 실행되지 않는다.
+		emf.getCache().evictAll();
+		emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+		
+		RequestSqlStats stats = RequestSqlStats.start();
+		try {
+			tx.executeWithoutResult(status -> {
+				query.run();
+				em.clear();
+			});
+		} finally {
+			RequestSqlStats.finish();
+		}
+		
+		List<String> selects = stats.getStatementShapes().keySet().stream()
+				.filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+				.toList();
+		assertTrue(!selects.isEmpty(), name + " : 실행된 select 가 없습니다.");
+		
+		for (String sql : selects) {
+			String plan = explain(sql);
+			Set<String> scans = tableScans(plan);
+			if (scans.size() > maxTableScans) {
+				failures.add(name + " : 테이블 스캔 " + scans + " (허용 " + maxTableScans + "개)\n  SQL  : " + sql + "\n  PLAN : " + plan);
+			}
+		}
+	}
+
+	private String explain(String sql) {
+		// 잠금은 실행계획과 상관없다.
+		String select = sql.replaceAll("(?i)\\s+for update\\s*$", "");
+		
+		return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+			try (PreparedStatement ps = con.prepareStatement("explain " + select)) {
+				// 실행계획은 파라미터 값과 상관없이 만들어진다. (값을 모르는 상태로 인덱스를 고른다.)
+				int parameters = ps.getParameterMetaData().getParameterCount();
+				for (int i = 1; i <= parameters; i++) {
+					ps.setObject(i, null);
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					rs.next();
+					return rs.getString(1);
+				}
+			}
+		});
+	}
+
+	private Set<String> tableScans(String plan) {
+		Set<String> tables = new TreeSet<>();
+		Matcher matcher = TABLE_SCAN.matcher(plan);
+		while (matcher.find()) {
+			tables.add(matcher.group(1));
+		}
+		return tables;
+	}
+
+	/**
+	 * 회원 300명, 상품 300개, 주문 1000건 (주문당 상품 2개)
+	 * 카테고리 10개 (자식 3개씩, 자식마다 상품 10개)
+	 */
+	private void seed() {
+		List<Long> memberIds = tx.execute(status -> {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 1; i <= MEMBERS; i++) {
+				Member member = new Member();
+				member.setName("plan-member-" + i);
+				member.setAddress(new Address("서울", "street-" + i, "12345"));
+				em.persist(member);
+				ids.add(member.getId());
+			}
+			return ids;
+		});
+		
+		List<Long> itemIds = tx.execute(status -> {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 1; i <= ITEMS; i++) {
+				Book book = new Book();
+				book.setName("plan-book-" + i);
+				book.setPrice(10000);
+				book.setStockQuantity(Integer.MAX_VALUE / 2);
+				em.persist(book);
+				ids.add(book.getId());
+			}
+			return ids;
+		});
+		
+		tx.executeWithoutResult(status -> {
+			int itemIndex = 0;
+			for (int i = 1; i <= CATEGORIES; i++) {
+				Category parent = new Category();
+				parent.setName("plan-category-" + i);
+				em.persist(parent);
+				
+				for (int j = 1; j <= 3; j++) {
+					Category child = new Category();
+					child.setName("plan-category-" + i + "-" + j);
+					parent.addChildCategory(child);
+					em.persist(child);
+					
+					for (int k = 0; k < 10; k++) {
+						child.getItems().add(em.getReference(Book.class, itemIds.get(itemIndex++ % ITEMS)));
+					}
+				}
+			}
+		});
+		
+		tx.executeWithoutResult(status -> {
+			for (int i = 0; i < ORDERS; i++) {
+				Delivery delivery = new Delivery();
+				delivery.setAddress(new Address("서울", "street-" + i, "12345"));
+				delivery.setStatus(DeliveryStatus.READY);
+				
+				Order order = Order.createOrder(em.getReference(Member.class, memberIds.get(i % MEMBERS)), delivery,
+						OrderItem.createReservedOrderItem(em.getReference(Book.class, itemIds.get(i % ITEMS)), 10000, 1),
+						OrderItem.createReservedOrderItem(em.getReference(Book.class, itemIds.get((i + 1) % ITEMS)), 10000, 2));
+				em.persist(order);
+				
+				if (i % 200 == 0) {
+					em.flush();
+					em.clear();
+				}
+			}
+		});
+	}
+}
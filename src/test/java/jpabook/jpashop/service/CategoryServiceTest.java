@@ -0,0 +1,78 @@
+package jpabook.jpashop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+
+	@Autowired CategoryService categoryService;
+	@Autowired EntityManager em;
+
+	@Test
+	void 카테고리_경로() {
+		// given
+		Long rootId = categoryService.create("도서", null);
+		Long childId = categoryService.create("IT", rootId);
+		Long grandChildId = categoryService.create("자바", childId);
+		
+		// then
+		assertEquals("/", em.find(Category.class, rootId).getPath());
+		assertEquals("/" + rootId + "/", em.find(Category.class, childId).getPath());
+		assertEquals("/" + rootId + "/" + childId + "/", em.find(Category.class, grandChildId).getPath());
+	}
+
+	@Test
+	void 하위_카테고리_상품_조회() {
+		// given
+		Long rootId = categoryService.create("도서", null);
+		Long childId = categoryService.create("IT", rootId);
+		Long grandChildId = categoryService.create("자바", childId);
+		Long otherId = categoryService.create("음반", null);
+		
+		Long rootItem = createBook("도서 상품");
+		Long childItem = createBook("IT 상품");
+		Long grandChildItem = createBook("자바 상품");
+		Long otherItem = createBook("음반 상품");
+		
+		categoryService.addItem(rootId, rootItem);
+		categoryService.addItem(childId, childItem);
+		categoryService.addItem(grandChildId, grandChildItem);
+		categoryService.addItem(grandChildId, childItem);	// 두 카테고리에 속한 상품
+		categoryService.addItem(otherId, otherItem);
+		em.flush();
+		em.clear();
+		
+		// when
+		List<Long> all = ids(categoryService.findItemsInSubtree(rootId, 0, 100));
+		List<Long> child = ids(categoryService.findItemsInSubtree(childId, 0, 100));
+		
+		// then
+		assertEquals(List.of(rootItem, childItem, grandChildItem), all);
+		assertEquals(List.of(childItem, grandChildItem), child);
+	}
+
+	private Long createBook(String name) {
+		Book book = new Book();
+		book.setName(name);
+		em.persist(book);
+		return book.getId();
+	}
+
+	private static List<Long> ids(List<Item> items) {
+		return items.stream().map(Item::getId).collect(Collectors.toList());
+	}
+}
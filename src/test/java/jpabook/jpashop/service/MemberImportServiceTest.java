@@ -0,0 +1,75 @@
+package jpabook.jpashop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportService.Format;
+import jpabook.jpashop.service.MemberImportService.ImportResult;
+
+/**
+ * 회원 일괄 등록 테스트
+ * - chunk 마다 서비스가 직접 트랜잭션을 커밋하므로 @Transactional 을 사용하지 않는다. (테스트 데이터는 커밋된다.)
+ */
+@SpringBootTest
+class MemberImportServiceTest {
+
+	@Autowired MemberImportService memberImportService;
+	@Autowired EntityManager em;
+	@Autowired PlatformTransactionManager transactionManager;
+
+	@Test
+	void 블룸필터에_없는_기존이름_중복() throws Exception {
+		// given : 다른 서버에서 가입한 것처럼 블룸 필터를 거치지 않고 저장
+		String suffix = "-" + System.nanoTime();
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Member member = new Member();
+			member.setName("기존회원" + suffix);
+			member.setAddress(new Address("서울", "도로", "123"));
+			em.persist(member);
+		});
+		
+		String csv = "name,city,street,zipcode\n"
+				+ "기존회원" + suffix + ",서울,도로,123\n"
+				+ "신규회원" + suffix + ",서울,도로,123\n";
+		
+		// when : 첫 저장은 유니크 제약조건으로 실패하고, 블룸 필터 없이 다시 확인한다.
+		ImportResult result = memberImportService.importMembers(stream(csv), Format.CSV);
+		
+		// then
+		assertEquals(2, result.getTotal());
+		assertEquals(1, result.getImported());
+		assertEquals(1, result.getRejected());
+		assertEquals(2, result.getRejectedRows().get(0).getLine());
+		assertEquals("이미 존재하는 회원입니다.", result.getRejectedRows().get(0).getReason());
+	}
+
+	@Test
+	void NDJSON_null_줄은_형식오류() throws Exception {
+		// given
+		String ndjson = "null\n{\"name\":\"ndjson회원-" + System.nanoTime() + "\"}\n";
+		
+		// when
+		ImportResult result = memberImportService.importMembers(stream(ndjson), Format.NDJSON);
+		
+		// then
+		assertEquals(1, result.getImported());
+		assertEquals(1, result.getRejected());
+		assertEquals(1, result.getRejectedRows().get(0).getLine());
+	}
+
+	private static InputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -14,6 +14,7 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
+import jpabook.jpashop.api.UpdateMemberRequest;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
 
@@ -74,6 +75,23 @@ class MemberServiceTest {
 		assertThatThrownBy(() -> memberService.join(member2)).isInstanceOf(IllegalStateException.class);
 	}
 
+	@Test
+	public void 이름변경_중복_예외() {
+		// given
+		Member member1 = new Member();
+		member1.setName("변경회원1");
+		Member member2 = new Member();
+		member2.setName("변경회원2");
+		memberService.join(member1);
+		Long id = memberService.join(member2);
+		
+		UpdateMemberRequest request = new UpdateMemberRequest();
+		request.setName("변경회원1");
+		
+		// when, then
+		assertThatThrownBy(() -> memberService.updateMember(id, request)).isInstanceOf(IllegalStateException.class);
+	}
+
 
 	@Test
 	public void 회워조회() {
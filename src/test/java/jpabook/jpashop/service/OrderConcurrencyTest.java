@@ -0,0 +1,100 @@
+package jpabook.jpashop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+
+/**
+ * 동시 주문 테스트
+ * - 여러 스레드가 각자 트랜잭션으로 주문해야 하므로 @Transactional 을 사용하지 않는다. (테스트 데이터는 커밋된다.)
+ */
+@SpringBootTest
+class OrderConcurrencyTest {
+
+	private static final int STOCK = 100;
+	private static final int BUYERS = 300;
+
+	@Autowired OrderService orderService;
+	@Autowired EntityManager em;
+	@Autowired PlatformTransactionManager transactionManager;
+
+	@Test
+	public void 동시주문_초과판매없음() throws Exception {
+		// given
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Member member = tx.execute(status -> {
+			Member m = new Member();
+			m.setName("동시주문회원-" + System.nanoTime());
+			m.setAddress(new Address("서울", "도로", "123"));
+			em.persist(m);
+			return m;
+		});
+		Book book = tx.execute(status -> {
+			Book b = new Book();
+			b.setName("한정판");
+			b.setPrice(10000);
+			b.setStockQuantity(STOCK);
+			em.persist(b);
+			return b;
+		});
+		
+		// when : BUYERS 명이 동시에 1개씩 주문
+		AtomicInteger success = new AtomicInteger();
+		AtomicInteger soldOut = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < BUYERS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					orderService.order(member.getId(), book.getId(), 1);
+					success.incrementAndGet();
+				} catch (NotEnoughStockException e) {
+					soldOut.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+		
+		// then
+		int stock = tx.execute(status -> 
+			em.createQuery("select i.stockQuantity from Item i where i.id = :id", Integer.class)
+				.setParameter("id", book.getId())
+				.getSingleResult());
+		Long orderItemCount = tx.execute(status -> 
+			em.createQuery("select count(oi) from OrderItem oi where oi.item.id = :id", Long.class)
+				.setParameter("id", book.getId())
+				.getSingleResult());
+		
+		assertEquals(STOCK, success.get(), "재고 수량 만큼만 주문에 성공해야 한다.");
+		assertEquals(BUYERS - STOCK, soldOut.get(), "나머지는 재고 부족으로 실패해야 한다.");
+		assertEquals(0, stock, "재고는 0 이어야 한다.");
+		assertEquals(STOCK, orderItemCount, "저장된 주문상품 수는 재고 수량과 같아야 한다.");
+	}
+}
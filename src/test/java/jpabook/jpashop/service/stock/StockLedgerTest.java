@@ -0,0 +1,80 @@
+package jpabook.jpashop.service.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+
+/**
+ * 재고 원장 - 차감이 진행 중일 때 상품 수정
+ * - 수정(REQUIRES_NEW)은 차감한 트랜잭션보다 먼저 커밋된다. (테스트 데이터는 커밋된다.)
+ * - 관리자가 입력한 재고가 기준이므로 원장과 DB 모두 입력한 값이어야 한다.
+ */
+@SpringBootTest(properties = "jpashop.stock.ledger.enabled=true")
+class StockLedgerTest {
+
+	@Autowired StockLedger stockLedger;
+	@Autowired ItemService itemService;
+	@Autowired JdbcTemplate jdbcTemplate;
+	@Autowired PlatformTransactionManager transactionManager;
+
+	@Test
+	public void 수정전_차감이_롤백되면_새재고에_되돌리지_않음() {
+		// given
+		Long itemId = createBook(100);
+		
+		// when : 30개 차감 -> 재고 50 으로 수정 커밋 -> 차감 롤백
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			stockLedger.reserve(itemId, 30);
+			update(itemId, 50);
+			status.setRollbackOnly();
+		});
+		stockLedger.flush();
+		
+		// then
+		assertEquals(50, stockLedger.available(itemId), "롤백된 차감은 이전 카운터에 되돌려야 한다.");
+		assertEquals(50, stockInDB(itemId), "DB 재고는 입력한 값이어야 한다.");
+	}
+
+	@Test
+	public void 수정전_커밋된_차감과_flush_후에도_원장과_DB_일치() {
+		// given
+		Long itemId = createBook(100);
+		stockLedger.reserve(itemId, 30);	// 트랜잭션 밖 = 바로 커밋, flush 는 수정 전이나 후에 실행될 수 있다.
+		
+		// when
+		update(itemId, 50);
+		stockLedger.flush();
+		
+		// then
+		assertEquals(stockInDB(itemId), stockLedger.available(itemId), "원장과 DB 재고가 같아야 한다.");
+	}
+
+	private Long createBook(int stock) {
+		Book book = new Book();
+		book.setName("원장-" + System.nanoTime());
+		book.setPrice(10000);
+		book.setStockQuantity(stock);
+		itemService.saveItem(book);
+		return book.getId();
+	}
+
+	// 진행 중인 트랜잭션과 별도로 수정을 커밋한다.
+	private void update(Long itemId, int stock) {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		requiresNew.executeWithoutResult(status -> itemService.updateItem1(itemId, "수정-" + itemId, 10000, stock));
+	}
+
+	private int stockInDB(Long itemId) {
+		return jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+	}
+}